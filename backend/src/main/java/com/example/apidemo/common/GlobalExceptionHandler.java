@@ -1,6 +1,8 @@
 package com.example.apidemo.common;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -50,6 +52,16 @@ public class GlobalExceptionHandler {
         return Result.error(ex.getCode(), ex.getMessage());
     }
 
+    /**
+     * 处理服务繁忙异常
+     */
+    @ExceptionHandler(ServiceBusyException.class)
+    public ResponseEntity<Result<Void>> handleServiceBusyException(ServiceBusyException ex) {
+        return ResponseEntity.status(ex.getStatus())
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfter()))
+                .body(Result.error(ex.getStatus(), ex.getMessage()));
+    }
+
     /**
      * 处理运行时异常
      */
@@ -0,0 +1,279 @@
+package com.example.apidemo.common;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * multipart/form-data 流式解析器
+ * 按顺序逐个读取表单项，文件内容以流的形式交给调用方，不落临时文件，内存占用固定为一个缓冲区
+ */
+public class MultipartStream {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final int MAX_HEADER_SIZE = 16 * 1024;
+
+    private static final byte[] CRLF = { '\r', '\n' };
+
+    private static final byte[] HEADER_END = { '\r', '\n', '\r', '\n' };
+
+    private static final Pattern NAME_PATTERN = Pattern.compile("(?i)(?:^|;)\\s*name=\"([^\"]*)\"");
+
+    private static final Pattern FILENAME_PATTERN = Pattern.compile("(?i)(?:^|;)\\s*filename=\"([^\"]*)\"");
+
+    private final InputStream in;
+
+    /**
+     * 分隔符：\r\n--boundary
+     */
+    private final byte[] delimiter;
+
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+
+    private int head;
+
+    private int tail;
+
+    /**
+     * 该位置之前已确认不存在分隔符
+     */
+    private int searchFrom;
+
+    private boolean finished;
+
+    private PartInputStream current;
+
+    private Map<String, String> headers = new LinkedHashMap<>();
+
+    public MultipartStream(InputStream in, String boundary) {
+        this.in = in;
+        this.delimiter = ("\r\n--" + boundary).getBytes(StandardCharsets.ISO_8859_1);
+        // 第一个分隔符前没有换行，补上后与后续分隔符统一处理
+        buffer[0] = '\r';
+        buffer[1] = '\n';
+        tail = 2;
+    }
+
+    /**
+     * 移动到下一个表单项（未读完的当前项会被跳过）
+     *
+     * @return 没有更多表单项时返回 false
+     */
+    public boolean nextPart() throws IOException {
+        if (finished) {
+            return false;
+        }
+        if (current == null) {
+            // 跳过第一个分隔符前的前导内容
+            current = new PartInputStream();
+        }
+        current.skipAll();
+
+        if (!ensure(2)) {
+            throw new EOFException("multipart 数据不完整");
+        }
+        if (buffer[head] == '-' && buffer[head + 1] == '-') {
+            finished = true;
+            return false;
+        }
+
+        int lineEnd = find(CRLF, MAX_HEADER_SIZE);
+        head = lineEnd + CRLF.length;
+
+        headers = new LinkedHashMap<>();
+        if (!ensure(2)) {
+            throw new EOFException("multipart 数据不完整");
+        }
+        if (buffer[head] == '\r' && buffer[head + 1] == '\n') {
+            head += 2;
+        } else {
+            int headerEnd = find(HEADER_END, MAX_HEADER_SIZE);
+            String block = new String(buffer, head, headerEnd - head, StandardCharsets.UTF_8);
+            for (String line : block.split("\r\n")) {
+                int colon = line.indexOf(':');
+                if (colon > 0) {
+                    headers.put(line.substring(0, colon).trim().toLowerCase(Locale.ROOT),
+                            line.substring(colon + 1).trim());
+                }
+            }
+            head = headerEnd + HEADER_END.length;
+        }
+
+        searchFrom = head;
+        current = new PartInputStream();
+        return true;
+    }
+
+    /**
+     * 当前表单项的请求头（名称小写）
+     */
+    public String getHeader(String name) {
+        return headers.get(name.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * 当前表单项名称
+     */
+    public String getName() {
+        return dispositionParam(NAME_PATTERN);
+    }
+
+    /**
+     * 当前表单项的文件名，非文件项返回 null
+     */
+    public String getFilename() {
+        return dispositionParam(FILENAME_PATTERN);
+    }
+
+    /**
+     * 当前表单项内容
+     */
+    public InputStream getPartStream() {
+        return current;
+    }
+
+    private String dispositionParam(Pattern pattern) {
+        String disposition = getHeader("Content-Disposition");
+        if (disposition == null) {
+            return null;
+        }
+        Matcher matcher = pattern.matcher(disposition);
+        return matcher.find() ? matcher.group(1) : null;
+    }
+
+    /**
+     * 保证缓冲区中至少有 n 个字节可读
+     */
+    private boolean ensure(int n) throws IOException {
+        while (tail - head < n) {
+            if (!fill()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 在 maxLength 范围内查找字节序列，返回其在缓冲区中的位置
+     */
+    private int find(byte[] target, int maxLength) throws IOException {
+        int from = head;
+        while (true) {
+            int index = indexOf(target, from, tail);
+            if (index >= 0) {
+                return index;
+            }
+            if (tail - head >= maxLength) {
+                throw new IOException("multipart 头部过长");
+            }
+            from = Math.max(head, tail - target.length + 1);
+            int shift = head;
+            if (!fill()) {
+                throw new EOFException("multipart 数据不完整");
+            }
+            from -= shift - head;
+        }
+    }
+
+    /**
+     * 压缩缓冲区并读取更多数据
+     */
+    private boolean fill() throws IOException {
+        if (head > 0) {
+            System.arraycopy(buffer, head, buffer, 0, tail - head);
+            tail -= head;
+            searchFrom = Math.max(0, searchFrom - head);
+            head = 0;
+        }
+        if (tail == buffer.length) {
+            return false;
+        }
+        int read = in.read(buffer, tail, buffer.length - tail);
+        if (read < 0) {
+            return false;
+        }
+        tail += read;
+        return true;
+    }
+
+    private int indexOf(byte[] target, int from, int to) {
+        int last = to - target.length;
+        outer:
+        for (int i = from; i <= last; i++) {
+            for (int j = 0; j < target.length; j++) {
+                if (buffer[i + j] != target[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    /**
+     * 单个表单项的内容流，读到分隔符时结束
+     */
+    private class PartInputStream extends InputStream {
+
+        private boolean done;
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            return read(single, 0, 1) < 0 ? -1 : single[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (done) {
+                return -1;
+            }
+            if (len == 0) {
+                return 0;
+            }
+            while (true) {
+                int index = findDelimiter();
+                // 未找到分隔符时，末尾可能是分隔符的前半段，暂不输出
+                int limit = index >= 0 ? index : tail - delimiter.length + 1;
+                if (limit > head) {
+                    int n = Math.min(len, limit - head);
+                    System.arraycopy(buffer, head, b, off, n);
+                    head += n;
+                    return n;
+                }
+                if (index >= 0) {
+                    head = index + delimiter.length;
+                    done = true;
+                    return -1;
+                }
+                if (!fill()) {
+                    throw new EOFException("multipart 数据不完整");
+                }
+            }
+        }
+
+        void skipAll() throws IOException {
+            byte[] skip = new byte[BUFFER_SIZE];
+            while (read(skip, 0, skip.length) >= 0) {
+                // 丢弃
+            }
+        }
+
+        private int findDelimiter() {
+            int index = indexOf(delimiter, Math.max(searchFrom, head), tail);
+            if (index >= 0) {
+                searchFrom = index;
+            } else {
+                searchFrom = Math.max(head, tail - delimiter.length + 1);
+            }
+            return index;
+        }
+    }
+}
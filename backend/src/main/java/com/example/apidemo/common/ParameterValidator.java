@@ -0,0 +1,388 @@
+package com.example.apidemo.common;
+
+import com.example.apidemo.entity.ApiParameter;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.*;
+
+/**
+ * 参数定义校验器
+ * 由接口的参数树编译得到，编译后不可变、可多线程共用。校验时用 JsonParser 单遍流式读取，
+ * 不构造 JSON 树，没有违规时除一个校验上下文外不分配对象；每个违规都带有 JSON 路径（如 $.user.tags[2]）。
+ * 规则：顶层必须是对象；object/array/number/boolean/string 按类型校验，其他类型不校验；
+ * 必填字段缺失或为 null 视为缺少；参数树中没有的字段忽略；同名参数以最后一个定义为准
+ */
+public final class ParameterValidator {
+
+    public static final int DEFAULT_MAX_VIOLATIONS = 100;
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final Schema root;
+
+    private ParameterValidator(Schema root) {
+        this.root = root;
+    }
+
+    /**
+     * 编译参数树
+     */
+    public static ParameterValidator compile(List<ApiParameter> parameters) {
+        return new ParameterValidator(compileObject(parameters));
+    }
+
+    public List<Violation> validate(byte[] json) {
+        try (JsonParser parser = JSON_FACTORY.createParser(json)) {
+            return validate(parser, DEFAULT_MAX_VIOLATIONS);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @throws IOException 读取输入流失败（JSON 格式错误作为违规返回，不抛出）
+     */
+    public List<Violation> validate(InputStream in, int maxViolations) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(in)) {
+            return validate(parser, maxViolations);
+        }
+    }
+
+    /**
+     * 校验一个 JSON 值，达到 maxViolations 个违规后停止
+     *
+     * @return 违规列表，为空表示校验通过
+     */
+    public List<Violation> validate(JsonParser parser, int maxViolations) throws IOException {
+        Context context = new Context(parser, Math.max(1, maxViolations));
+        try {
+            JsonToken token = parser.nextToken();
+            if (token == null) {
+                context.violation("请求体为空");
+                return context.violations();
+            }
+            validateValue(token, root, context);
+            if (!context.isFull() && parser.nextToken() != null) {
+                context.violation("JSON之后有多余内容");
+            }
+        } catch (JsonProcessingException e) {
+            context.violation("JSON格式错误: " + e.getOriginalMessage());
+        }
+        return context.violations();
+    }
+
+    private static void validateValue(JsonToken token, Schema schema, Context context) throws IOException {
+        switch (schema.type) {
+            case OBJECT:
+                if (token == JsonToken.START_OBJECT) {
+                    validateObject(schema, context);
+                } else {
+                    context.typeMismatch(schema.type, token);
+                }
+                break;
+            case ARRAY:
+                if (token == JsonToken.START_ARRAY) {
+                    validateArray(schema, context);
+                } else {
+                    context.typeMismatch(schema.type, token);
+                }
+                break;
+            case NUMBER:
+                if (!token.isNumeric()) {
+                    context.typeMismatch(schema.type, token);
+                }
+                break;
+            case BOOLEAN:
+                if (!token.isBoolean()) {
+                    context.typeMismatch(schema.type, token);
+                }
+                break;
+            case STRING:
+                if (token != JsonToken.VALUE_STRING) {
+                    context.typeMismatch(schema.type, token);
+                }
+                break;
+            default:
+                context.parser.skipChildren();
+        }
+    }
+
+    private static void validateObject(Schema schema, Context context) throws IOException {
+        JsonParser parser = context.parser;
+        String[] required = schema.required;
+        // 必填字段不超过 64 个时用位图记录，不分配对象
+        long seen = 0;
+        boolean[] seenLarge = required.length > 64 ? new boolean[required.length] : null;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.currentName();
+            JsonToken value = parser.nextToken();
+            Field field = schema.fields.get(name);
+            if (field == null || value == JsonToken.VALUE_NULL) {
+                parser.skipChildren();
+                continue;
+            }
+            if (field.requiredIndex >= 0) {
+                if (seenLarge != null) {
+                    seenLarge[field.requiredIndex] = true;
+                } else {
+                    seen |= 1L << field.requiredIndex;
+                }
+            }
+            context.pushField(name);
+            validateValue(value, field.schema, context);
+            context.pop();
+            if (context.isFull()) {
+                return;
+            }
+        }
+
+        for (int i = 0; i < required.length; i++) {
+            boolean present = seenLarge != null ? seenLarge[i] : (seen & (1L << i)) != 0;
+            if (!present) {
+                context.pushField(required[i]);
+                context.violation("缺少必填字段");
+                context.pop();
+                if (context.isFull()) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private static void validateArray(Schema schema, Context context) throws IOException {
+        JsonParser parser = context.parser;
+        int index = 0;
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY && token != null) {
+            if (schema.items == null) {
+                parser.skipChildren();
+            } else {
+                context.pushIndex(index);
+                validateValue(token, schema.items, context);
+                context.pop();
+                if (context.isFull()) {
+                    return;
+                }
+            }
+            index++;
+        }
+    }
+
+    private static Schema compile(ApiParameter param) {
+        Type type = Type.of(param.getType());
+        List<ApiParameter> children = param.getChildren() != null ? param.getChildren() : List.of();
+        switch (type) {
+            case OBJECT:
+                return compileObject(children);
+            case ARRAY:
+                // 数组元素结构取第一个子参数（与JSON示例一致），没有时不校验元素
+                return new Schema(Type.ARRAY, Map.of(), new String[0], children.isEmpty() ? null : compile(children.get(0)));
+            default:
+                return new Schema(type, Map.of(), new String[0], null);
+        }
+    }
+
+    private static Schema compileObject(List<ApiParameter> parameters) {
+        Map<String, ApiParameter> byName = new LinkedHashMap<>();
+        for (ApiParameter param : parameters) {
+            if (param.getName() != null) {
+                byName.put(param.getName(), param);
+            }
+        }
+
+        List<String> required = new ArrayList<>();
+        Map<String, Field> fields = new HashMap<>(byName.size() * 2);
+        for (ApiParameter param : byName.values()) {
+            int requiredIndex = -1;
+            if (Boolean.TRUE.equals(param.getRequired())) {
+                requiredIndex = required.size();
+                required.add(param.getName());
+            }
+            fields.put(param.getName(), new Field(compile(param), requiredIndex));
+        }
+        return new Schema(Type.OBJECT, fields, required.toArray(new String[0]), null);
+    }
+
+    private enum Type {
+        OBJECT, ARRAY, NUMBER, BOOLEAN, STRING, ANY;
+
+        static Type of(String type) {
+            if (type == null) {
+                return STRING;
+            }
+            switch (type.toLowerCase()) {
+                case "object":
+                    return OBJECT;
+                case "array":
+                    return ARRAY;
+                case "number":
+                    return NUMBER;
+                case "boolean":
+                    return BOOLEAN;
+                case "string":
+                    return STRING;
+                default:
+                    return ANY;
+            }
+        }
+    }
+
+    private static final class Schema {
+
+        private final Type type;
+
+        /**
+         * 对象字段（仅 OBJECT）
+         */
+        private final Map<String, Field> fields;
+
+        /**
+         * 必填字段名，下标即 Field.requiredIndex（仅 OBJECT）
+         */
+        private final String[] required;
+
+        /**
+         * 数组元素结构（仅 ARRAY，null 表示不校验）
+         */
+        private final Schema items;
+
+        Schema(Type type, Map<String, Field> fields, String[] required, Schema items) {
+            this.type = type;
+            this.fields = fields;
+            this.required = required;
+            this.items = items;
+        }
+    }
+
+    private static final class Field {
+
+        private final Schema schema;
+        private final int requiredIndex;
+
+        Field(Schema schema, int requiredIndex) {
+            this.schema = schema;
+            this.requiredIndex = requiredIndex;
+        }
+    }
+
+    /**
+     * 校验上下文：当前路径用栈记录，只在产生违规时拼接成字符串
+     */
+    private static final class Context {
+
+        private final JsonParser parser;
+        private final int maxViolations;
+        private String[] names = new String[16];
+        private int[] indexes = new int[16];
+        private int depth;
+        private List<Violation> violations;
+
+        Context(JsonParser parser, int maxViolations) {
+            this.parser = parser;
+            this.maxViolations = maxViolations;
+        }
+
+        void pushField(String name) {
+            ensureCapacity();
+            names[depth] = name;
+            depth++;
+        }
+
+        void pushIndex(int index) {
+            ensureCapacity();
+            names[depth] = null;
+            indexes[depth] = index;
+            depth++;
+        }
+
+        void pop() {
+            depth--;
+        }
+
+        boolean isFull() {
+            return violations != null && violations.size() >= maxViolations;
+        }
+
+        void typeMismatch(Type expected, JsonToken actual) throws IOException {
+            violation("类型应为 " + expected.name().toLowerCase() + "，实际为 " + describe(actual));
+            parser.skipChildren();
+        }
+
+        void violation(String message) {
+            if (violations == null) {
+                violations = new ArrayList<>();
+            }
+            if (violations.size() < maxViolations) {
+                violations.add(new Violation(path(), message));
+            }
+        }
+
+        List<Violation> violations() {
+            return violations != null ? violations : List.of();
+        }
+
+        private String path() {
+            StringBuilder path = new StringBuilder("$");
+            for (int i = 0; i < depth; i++) {
+                if (names[i] != null) {
+                    path.append('.').append(names[i]);
+                } else {
+                    path.append('[').append(indexes[i]).append(']');
+                }
+            }
+            return path.toString();
+        }
+
+        private void ensureCapacity() {
+            if (depth == names.length) {
+                names = Arrays.copyOf(names, depth * 2);
+                indexes = Arrays.copyOf(indexes, depth * 2);
+            }
+        }
+
+        private static String describe(JsonToken token) {
+            switch (token) {
+                case START_OBJECT:
+                    return "object";
+                case START_ARRAY:
+                    return "array";
+                case VALUE_STRING:
+                    return "string";
+                case VALUE_NUMBER_INT:
+                case VALUE_NUMBER_FLOAT:
+                    return "number";
+                case VALUE_TRUE:
+                case VALUE_FALSE:
+                    return "boolean";
+                case VALUE_NULL:
+                    return "null";
+                default:
+                    return token.name();
+            }
+        }
+    }
+
+    /**
+     * 违规项
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class Violation {
+
+        /**
+         * JSON 路径
+         */
+        private final String path;
+
+        private final String message;
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.apidemo.common;
+
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * 路径路由表
+ * 路径按 "/" 分段组织成前缀树：固定段用哈希表查找，整段为 {变量} 的单独一个分支，
+ * 含变量的混合段（如 file-{id}.json）按正则匹配。匹配时固定段优先，其次混合段，最后变量段，必要时回溯。
+ * 空段忽略（/a//b/ 与 /a/b 相同）。构建完成后只读，可多线程并发匹配
+ */
+public class PathRouter<T> {
+
+    private final Node<T> root = new Node<>();
+
+    private int size;
+
+    /**
+     * 添加路由
+     *
+     * @return false 表示相同路径与方法已存在（保留先添加的）
+     */
+    public boolean add(String method, String path, T value) {
+        Node<T> node = root;
+        for (String segment : split(path)) {
+            node = node.child(segment);
+        }
+        if (node.handlers.putIfAbsent(method.toUpperCase(), value) != null) {
+            return false;
+        }
+        size++;
+        return true;
+    }
+
+    /**
+     * 查找路径对应的路由
+     *
+     * @return HTTP 方法 -> 路由值，路径不存在时返回 null
+     */
+    public Map<String, T> find(String path) {
+        Node<T> node = match(root, split(path), 0);
+        return node != null ? node.handlers : null;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private Node<T> match(Node<T> node, List<String> segments, int index) {
+        if (index == segments.size()) {
+            return node.handlers.isEmpty() ? null : node;
+        }
+        String segment = segments.get(index);
+
+        Node<T> literal = node.literals.get(segment);
+        if (literal != null) {
+            Node<T> found = match(literal, segments, index + 1);
+            if (found != null) {
+                return found;
+            }
+        }
+        for (PatternChild<T> child : node.patterns) {
+            if (child.pattern.matcher(segment).matches()) {
+                Node<T> found = match(child.node, segments, index + 1);
+                if (found != null) {
+                    return found;
+                }
+            }
+        }
+        return node.variable != null ? match(node.variable, segments, index + 1) : null;
+    }
+
+    private static List<String> split(String path) {
+        List<String> segments = new ArrayList<>(8);
+        int length = path.length();
+        int start = 0;
+        while (start < length) {
+            int end = path.indexOf('/', start);
+            if (end < 0) {
+                end = length;
+            }
+            if (end > start) {
+                segments.add(path.substring(start, end));
+            }
+            start = end + 1;
+        }
+        return segments;
+    }
+
+    private static class Node<T> {
+
+        private final Map<String, Node<T>> literals = new HashMap<>();
+        private final List<PatternChild<T>> patterns = new ArrayList<>();
+        private Node<T> variable;
+        private final Map<String, T> handlers = new HashMap<>();
+
+        Node<T> child(String segment) {
+            int open = segment.indexOf('{');
+            if (open < 0) {
+                return literals.computeIfAbsent(segment, key -> new Node<>());
+            }
+            if (open == 0 && segment.endsWith("}") && segment.indexOf('{', 1) < 0) {
+                if (variable == null) {
+                    variable = new Node<>();
+                }
+                return variable;
+            }
+
+            String regex = toRegex(segment);
+            for (PatternChild<T> child : patterns) {
+                if (child.pattern.pattern().equals(regex)) {
+                    return child.node;
+                }
+            }
+            PatternChild<T> child = new PatternChild<>(Pattern.compile(regex), new Node<>());
+            patterns.add(child);
+            return child.node;
+        }
+
+        /**
+         * file-{id}.json -> \Qfile-\E[^/]+?\Q.json\E
+         */
+        private static String toRegex(String segment) {
+            StringBuilder regex = new StringBuilder();
+            int start = 0;
+            while (start < segment.length()) {
+                int open = segment.indexOf('{', start);
+                int close = open >= 0 ? segment.indexOf('}', open) : -1;
+                if (open < 0 || close < 0) {
+                    regex.append(Pattern.quote(segment.substring(start)));
+                    break;
+                }
+                if (open > start) {
+                    regex.append(Pattern.quote(segment.substring(start, open)));
+                }
+                regex.append("[^/]+?");
+                start = close + 1;
+            }
+            return regex.toString();
+        }
+    }
+
+    private static class PatternChild<T> {
+
+        private final Pattern pattern;
+        private final Node<T> node;
+
+        PatternChild(Pattern pattern, Node<T> node) {
+            this.pattern = pattern;
+            this.node = node;
+        }
+    }
+}
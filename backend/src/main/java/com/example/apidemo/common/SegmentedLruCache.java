@@ -0,0 +1,85 @@
+package com.example.apidemo.common;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 分段 LRU 缓存
+ * 键按哈希分到多个段，每段是一个按访问顺序排列、有独立容量上限的 LinkedHashMap，只锁所在的段，
+ * 并发读写不同键时不会争用同一把锁。淘汰在段内按 LRU 进行，整体接近 LRU。
+ * 线程安全，不支持 null 值
+ */
+public class SegmentedLruCache<K, V> {
+
+    private final Segment<K, V>[] segments;
+
+    /**
+     * @param maxSize      最大条目数
+     * @param segmentCount 段数，向下取 2 的幂
+     */
+    @SuppressWarnings("unchecked")
+    public SegmentedLruCache(int maxSize, int segmentCount) {
+        int count = Integer.highestOneBit(Math.max(1, Math.min(segmentCount, maxSize)));
+        segments = new Segment[count];
+        for (int i = 0; i < count; i++) {
+            segments[i] = new Segment<>(Math.max(1, maxSize / count));
+        }
+    }
+
+    /**
+     * @return 未缓存时返回 null
+     */
+    public V get(K key) {
+        Segment<K, V> segment = segmentFor(key);
+        synchronized (segment) {
+            return segment.get(key);
+        }
+    }
+
+    public void put(K key, V value) {
+        Segment<K, V> segment = segmentFor(key);
+        synchronized (segment) {
+            segment.put(key, value);
+        }
+    }
+
+    public void remove(K key) {
+        Segment<K, V> segment = segmentFor(key);
+        synchronized (segment) {
+            segment.remove(key);
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    private Segment<K, V> segmentFor(K key) {
+        int h = key.hashCode() * 0x9e3779b9;
+        return segments[(h ^ (h >>> 16)) & (segments.length - 1)];
+    }
+
+    /**
+     * 缓存分段，由所在段的锁保护
+     */
+    private static class Segment<K, V> extends LinkedHashMap<K, V> {
+
+        private final int capacity;
+
+        Segment(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+            return size() > capacity;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.apidemo.common;
+
+import lombok.Getter;
+
+/**
+ * 服务繁忙异常（429 请求过多 / 503 暂时不可用），响应中带 Retry-After
+ */
+@Getter
+public class ServiceBusyException extends RuntimeException {
+
+    private final int status;
+
+    /**
+     * 建议客户端重试的等待时间（秒）
+     */
+    private final long retryAfter;
+
+    public ServiceBusyException(int status, String message, long retryAfter) {
+        super(message);
+        this.status = status;
+        this.retryAfter = retryAfter;
+    }
+}
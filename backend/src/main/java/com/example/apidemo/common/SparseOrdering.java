@@ -0,0 +1,153 @@
+package com.example.apidemo.common;
+
+import java.util.*;
+
+/**
+ * 稀疏排序号
+ * 排序号之间留有间隔（新编号以 STEP 递增），调整顺序时只给位置变了的元素分配相邻元素之间的新编号，
+ * 其他元素的排序号不变。
+ * 给定新顺序后，保留原排序号中最长的严格递增子序列（这些元素的相对顺序没有变），其余元素插入到空隙中，
+ * 因此移动一个元素通常只改写这一个元素；空隙用尽时只在附近逐步扩大的范围内重新分配
+ */
+public final class SparseOrdering {
+
+    /**
+     * 重新编号时的间隔
+     */
+    public static final int STEP = 65536;
+
+    /**
+     * 扩大范围重新分配时要求的最小间隔，保证之后还能在附近继续插入若干次
+     */
+    private static final int RESPREAD_GAP = 64;
+
+    private SparseOrdering() {
+    }
+
+    /**
+     * 按新顺序计算需要修改的排序号
+     *
+     * @param orderedIds  新顺序
+     * @param currentKeys 当前排序号（缺少或为 null 的元素视为需要分配）
+     * @return 需要修改的元素 ID -> 新排序号（按新顺序排列）
+     */
+    public static Map<Long, Integer> reorder(List<Long> orderedIds, Map<Long, Integer> currentKeys) {
+        int n = orderedIds.size();
+        Integer[] keys = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            keys[i] = currentKeys.get(orderedIds.get(i));
+        }
+
+        boolean[] keep = longestIncreasing(keys);
+        long[] assigned = new long[n];
+        int i = 0;
+        while (i < n) {
+            if (keep[i]) {
+                assigned[i] = keys[i];
+                i++;
+                continue;
+            }
+            // 连续一段需要分配的位置 [start, end)，夹在前后保留的编号之间；
+            // 空隙不够时向两侧成倍扩大范围，把范围内的元素均匀重新分配，而不是全部重新编号
+            int start = i;
+            int end = nextKept(keep, i);
+            int minGap = 1;
+            while (true) {
+                int count = end - start;
+                long low = start > 0 ? assigned[start - 1] : -1;
+                long high;
+                if (end < n) {
+                    high = keys[end];
+                    if (low < 0) {
+                        low = Math.max(-1, high - (long) STEP * (count + 1));
+                    }
+                } else {
+                    low = Math.max(low, 0);
+                    high = low + (long) STEP * (count + 1);
+                }
+                if ((high - low) / (count + 1) >= minGap && high <= Integer.MAX_VALUE) {
+                    for (int j = 0; j < count; j++) {
+                        assigned[start + j] = low + (high - low) * (j + 1) / (count + 1);
+                        keep[start + j] = false;
+                    }
+                    break;
+                }
+                if (start == 0 && end == n) {
+                    return renumber(orderedIds, currentKeys);
+                }
+                int grow = Math.max(count, 1);
+                minGap = RESPREAD_GAP;
+                start = Math.max(0, start - grow);
+                end = nextKept(keep, Math.min(n, end + grow));
+            }
+            i = end;
+        }
+
+        Map<Long, Integer> changes = new LinkedHashMap<>();
+        for (int j = 0; j < n; j++) {
+            if (!keep[j] && !Long.valueOf(assigned[j]).equals(keys[j] != null ? (long) keys[j] : null)) {
+                changes.put(orderedIds.get(j), (int) assigned[j]);
+            }
+        }
+        return changes;
+    }
+
+    private static int nextKept(boolean[] keep, int from) {
+        int i = from;
+        while (i < keep.length && !keep[i]) {
+            i++;
+        }
+        return i;
+    }
+
+    private static Map<Long, Integer> renumber(List<Long> orderedIds, Map<Long, Integer> currentKeys) {
+        Map<Long, Integer> changes = new LinkedHashMap<>();
+        for (int i = 0; i < orderedIds.size(); i++) {
+            int key = (i + 1) * STEP;
+            Long id = orderedIds.get(i);
+            if (!Integer.valueOf(key).equals(currentKeys.get(id))) {
+                changes.put(id, key);
+            }
+        }
+        return changes;
+    }
+
+    /**
+     * 最长严格递增子序列（O(n log n)），null 不参与
+     *
+     * @return 位于子序列中的位置
+     */
+    private static boolean[] longestIncreasing(Integer[] keys) {
+        int n = keys.length;
+        int[] tails = new int[n];
+        int[] previous = new int[n];
+        int length = 0;
+        for (int i = 0; i < n; i++) {
+            if (keys[i] == null || keys[i] < 0) {
+                continue;
+            }
+            int lo = 0;
+            int hi = length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (keys[tails[mid]] < keys[i]) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            previous[i] = lo > 0 ? tails[lo - 1] : -1;
+            tails[lo] = i;
+            if (lo == length) {
+                length++;
+            }
+        }
+
+        boolean[] keep = new boolean[n];
+        for (int i = length > 0 ? tails[length - 1] : -1, k = length; k > 0; k--) {
+            keep[i] = true;
+            i = previous[i];
+        }
+        return keep;
+    }
+}
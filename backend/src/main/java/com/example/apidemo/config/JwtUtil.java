@@ -1,33 +1,79 @@
 package com.example.apidemo.config;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
-import java.util.Date;
-import java.util.HashMap;
-import java.util.Map;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Function;
 
 /**
  * JWT 工具类
+ * 签名密钥与解析器在启动时创建一次（JwtParser 线程安全），每个 Token 只解析、验签一次
  */
 @Component
 public class JwtUtil {
 
+    /**
+     * 毫秒精度的签发时间（标准 iat 只精确到秒），用于判断 Token 是否在用户整体吊销之前签发
+     */
+    public static final String ISSUED_AT_MILLIS = "iat_ms";
+
     @Value("${jwt.secret}")
     private String secret;
 
     @Value("${jwt.expiration}")
     private Long expiration;
 
-    private SecretKey getSigningKey() {
-        byte[] keyBytes = secret.getBytes(StandardCharsets.UTF_8);
-        return Keys.hmacShaKeyFor(keyBytes);
+    /**
+     * 已验证 Token 缓存，命中时跳过验签与解析
+     */
+    @Value("${jwt.verified-cache.enabled:false}")
+    private boolean verifiedCacheEnabled;
+
+    @Value("${jwt.verified-cache.max-size:10000}")
+    private int verifiedCacheSize;
+
+    /**
+     * 缓存有效期（毫秒），不会超过 Token 本身的过期时间
+     */
+    @Value("${jwt.verified-cache.ttl:30000}")
+    private long verifiedCacheTtl;
+
+    private SecretKey signingKey;
+
+    private JwtParser parser;
+
+    /**
+     * Token 的 SHA-256 -> 已验证的 Claims
+     */
+    private Map<String, VerifiedToken> verifiedCache;
+
+    private final AtomicLong verifiedCacheHits = new AtomicLong();
+    private final AtomicLong verifiedCacheMisses = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        signingKey = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        parser = Jwts.parser()
+                .verifyWith(signingKey)
+                .build();
+        verifiedCache = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, VerifiedToken> eldest) {
+                return size() > verifiedCacheSize;
+            }
+        });
     }
 
     /**
@@ -39,15 +85,46 @@ public class JwtUtil {
     }
 
     private String createToken(Map<String, Object> claims, String subject) {
+        long now = System.currentTimeMillis();
         return Jwts.builder()
                 .claims(claims)
+                .claim(ISSUED_AT_MILLIS, now)
+                .id(UUID.randomUUID().toString())
                 .subject(subject)
-                .issuedAt(new Date(System.currentTimeMillis()))
-                .expiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(getSigningKey())
+                .issuedAt(new Date(now))
+                .expiration(new Date(now + expiration))
+                .signWith(signingKey)
                 .compact();
     }
 
+    /**
+     * 验证 Token（签名与过期时间）并返回其中的 Claims
+     *
+     * @throws JwtException Token 无效或已过期
+     */
+    public Claims verify(String token) {
+        if (!verifiedCacheEnabled) {
+            return parse(token);
+        }
+
+        String key = digest(token);
+        long now = System.currentTimeMillis();
+        VerifiedToken cached = verifiedCache.get(key);
+        if (cached != null && cached.expiresAt > now) {
+            verifiedCacheHits.incrementAndGet();
+            return cached.claims;
+        }
+        verifiedCacheMisses.incrementAndGet();
+
+        Claims claims = parse(token);
+        long expiresAt = now + verifiedCacheTtl;
+        if (claims.getExpiration() != null) {
+            expiresAt = Math.min(expiresAt, claims.getExpiration().getTime());
+        }
+        verifiedCache.put(key, new VerifiedToken(claims, expiresAt));
+        return claims;
+    }
+
     /**
      * 从 Token 中提取用户名
      */
@@ -63,30 +140,56 @@ public class JwtUtil {
     }
 
     public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
-        return claimsResolver.apply(claims);
+        return claimsResolver.apply(verify(token));
     }
 
-    private Claims extractAllClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+    /**
+     * 验证 Token
+     */
+    public Boolean validateToken(String token, String username) {
+        try {
+            return username.equals(verify(token).getSubject());
+        } catch (JwtException | IllegalArgumentException e) {
+            return false;
+        }
     }
 
     /**
-     * 检查 Token 是否过期
+     * 已验证 Token 缓存统计
      */
-    private Boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+    public Map<String, Object> getVerifiedCacheStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", verifiedCacheEnabled);
+        stats.put("entries", verifiedCache.size());
+        stats.put("hits", verifiedCacheHits.get());
+        stats.put("misses", verifiedCacheMisses.get());
+        return stats;
     }
 
     /**
-     * 验证 Token
+     * 解析并验签，过期的 Token 会抛出 ExpiredJwtException
      */
-    public Boolean validateToken(String token, String username) {
-        final String extractedUsername = extractUsername(token);
-        return (extractedUsername.equals(username) && !isTokenExpired(token));
+    private Claims parse(String token) {
+        return parser.parseSignedClaims(token).getPayload();
+    }
+
+    private String digest(String token) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(md.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static class VerifiedToken {
+
+        private final Claims claims;
+        private final long expiresAt;
+
+        VerifiedToken(Claims claims, long expiresAt) {
+            this.claims = claims;
+            this.expiresAt = expiresAt;
+        }
     }
 }
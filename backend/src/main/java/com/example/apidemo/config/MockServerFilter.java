@@ -0,0 +1,124 @@
+package com.example.apidemo.config;
+
+import com.example.apidemo.common.Result;
+import com.example.apidemo.service.MockServerService;
+import com.example.apidemo.service.MockServerService.MockEndpoint;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.cors.CorsConfiguration;
+import org.springframework.web.cors.CorsConfigurationSource;
+import org.springframework.web.cors.CorsUtils;
+import org.springframework.web.cors.DefaultCorsProcessor;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Mock 过滤器
+ * 开启后，{prefix}{接口路径} 的请求直接返回该接口的JSON示例。
+ * 位于 Spring Security 之前，不经过认证、限流和 DispatcherServlet，只做 CORS 处理
+ */
+@Component
+@Order(SecurityProperties.DEFAULT_FILTER_ORDER - 1)
+public class MockServerFilter extends OncePerRequestFilter {
+
+    private static final String JSON_CONTENT_TYPE = MediaType.APPLICATION_JSON_VALUE + ";charset=UTF-8";
+
+    @Value("${mock.enabled:false}")
+    private boolean enabled;
+
+    @Value("${mock.prefix:/mock}")
+    private String prefix;
+
+    @Autowired
+    private MockServerService mockServerService;
+
+    @Autowired
+    private CorsConfigurationSource corsConfigurationSource;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final DefaultCorsProcessor corsProcessor = new DefaultCorsProcessor();
+
+    @PostConstruct
+    public void init() {
+        if (enabled && (prefix == null || prefix.isBlank() || "/".equals(prefix.trim()))) {
+            throw new IllegalStateException("mock.prefix 不能为空或 /");
+        }
+        prefix = prefix.trim();
+        if (prefix.endsWith("/")) {
+            prefix = prefix.substring(0, prefix.length() - 1);
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!enabled) {
+            return true;
+        }
+        String uri = request.getRequestURI();
+        int start = request.getContextPath().length();
+        return !uri.startsWith(prefix, start)
+                || (uri.length() > start + prefix.length() && uri.charAt(start + prefix.length()) != '/');
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+            HttpServletResponse response,
+            FilterChain filterChain) throws ServletException, IOException {
+
+        CorsConfiguration corsConfiguration = corsConfigurationSource.getCorsConfiguration(request);
+        if (!corsProcessor.processRequest(corsConfiguration, request, response)
+                || CorsUtils.isPreFlightRequest(request)) {
+            return;
+        }
+
+        String path = request.getRequestURI().substring(request.getContextPath().length() + prefix.length());
+        Map<String, MockEndpoint> endpoints = mockServerService.find(path);
+        if (endpoints == null) {
+            writeError(response, HttpServletResponse.SC_NOT_FOUND, "Mock接口不存在");
+            return;
+        }
+
+        String method = request.getMethod();
+        boolean head = "HEAD".equals(method);
+        MockEndpoint endpoint = endpoints.get(method);
+        if (endpoint == null && head) {
+            endpoint = endpoints.get("GET");
+        }
+        if (endpoint == null) {
+            response.setHeader(HttpHeaders.ALLOW, String.join(", ", endpoints.keySet()));
+            writeError(response, HttpServletResponse.SC_METHOD_NOT_ALLOWED, "Mock接口不支持 " + method);
+            return;
+        }
+
+        byte[] body = endpoint.getBody();
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(JSON_CONTENT_TYPE);
+        response.setContentLength(body.length);
+        if (!head) {
+            response.getOutputStream().write(body);
+        }
+    }
+
+    private void writeError(HttpServletResponse response, int status, String message) throws IOException {
+        response.setStatus(status);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        objectMapper.writeValue(response.getOutputStream(), Result.error(status, message));
+    }
+}
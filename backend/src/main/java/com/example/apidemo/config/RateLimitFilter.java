@@ -0,0 +1,172 @@
+package com.example.apidemo.config;
+
+import com.example.apidemo.common.Result;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 限流过滤器
+ * 位于 JwtAuthFilter 之后，已登录请求按用户限流，匿名请求按 IP 限流，规则按路径配置。
+ * 每个客户端一个令牌桶，用 GCRA 实现（与令牌桶等价，只需一个原子变量），CAS 更新无锁；
+ * 超出限制返回 429 和 Retry-After
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    @Autowired
+    private RateLimitProperties properties;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    /**
+     * 规则序号 + 客户端标识 -> 令牌桶
+     */
+    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+
+    private List<RateLimitProperties.Rule> rules;
+
+    private ScheduledExecutorService evictor;
+
+    @PostConstruct
+    public void init() {
+        rules = List.copyOf(properties.getRules());
+        evictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "rate-limit-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = Math.max(1000, properties.getIdleTimeout());
+        evictor.scheduleWithFixedDelay(this::evictIdle, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        evictor.shutdownNow();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+            HttpServletResponse response,
+            FilterChain filterChain) throws ServletException, IOException {
+
+        if (properties.isEnabled()) {
+            int ruleIndex = matchRule(request);
+            if (ruleIndex >= 0) {
+                RateLimitProperties.Rule rule = rules.get(ruleIndex);
+                Bucket bucket = buckets.computeIfAbsent(ruleIndex + ":" + clientKey(request),
+                        key -> new Bucket(rule));
+                long waitNanos = bucket.tryAcquire(System.nanoTime());
+                if (waitNanos > 0) {
+                    reject(response, waitNanos);
+                    return;
+                }
+            }
+        }
+
+        filterChain.doFilter(request, response);
+    }
+
+    private int matchRule(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        for (int i = 0; i < rules.size(); i++) {
+            RateLimitProperties.Rule rule = rules.get(i);
+            if ((rule.getMethod() == null || rule.getMethod().equalsIgnoreCase(request.getMethod()))
+                    && pathMatcher.match(rule.getPattern(), path)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private String clientKey(HttpServletRequest request) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.isAuthenticated()) {
+            return "user:" + authentication.getName();
+        }
+        // 经可信代理转发时，remoteAddr 已由 Tomcat RemoteIpValve 替换为 X-Forwarded-For 中的客户端地址
+        return "ip:" + request.getRemoteAddr();
+    }
+
+    private void reject(HttpServletResponse response, long waitNanos) throws IOException {
+        long retryAfter = Math.max(1, (waitNanos + NANOS_PER_SECOND - 1) / NANOS_PER_SECOND);
+        response.setStatus(429);
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        objectMapper.writeValue(response.getOutputStream(), Result.error(429, "请求过于频繁，请稍后重试"));
+    }
+
+    /**
+     * 回收空闲的令牌桶（桶已补满即与新建的桶等价，删除不影响限流结果）
+     */
+    private void evictIdle() {
+        long idleBefore = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(properties.getIdleTimeout());
+        buckets.values().removeIf(bucket -> bucket.isIdleSince(idleBefore));
+    }
+
+    /**
+     * 令牌桶（GCRA）
+     * tat 为理论到达时间：每个请求把它推后一个发放间隔，超出 now + 桶容量 × 间隔 时拒绝
+     */
+    private static class Bucket {
+
+        private final long interval;
+        private final long burst;
+        private final AtomicLong tat;
+
+        Bucket(RateLimitProperties.Rule rule) {
+            this.interval = (long) (NANOS_PER_SECOND / rule.getRefillPerSecond());
+            this.burst = interval * Math.max(1, rule.getCapacity());
+            this.tat = new AtomicLong(System.nanoTime() - burst);
+        }
+
+        /**
+         * @return 0 表示放行，否则为需要等待的纳秒数
+         */
+        long tryAcquire(long now) {
+            while (true) {
+                long current = tat.get();
+                long next = Math.max(current, now) + interval;
+                long excess = next - now - burst;
+                if (excess > 0) {
+                    return excess;
+                }
+                if (tat.compareAndSet(current, next)) {
+                    return 0;
+                }
+            }
+        }
+
+        boolean isIdleSince(long time) {
+            return tat.get() - time < 0;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.apidemo.config;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Positive;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 限流配置（启动时校验，配置错误时启动失败）
+ */
+@Data
+@Component
+@Validated
+@ConfigurationProperties(prefix = "rate-limit")
+public class RateLimitProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * 空闲多久（毫秒）后回收客户端的令牌桶
+     */
+    @Positive(message = "idle-timeout 必须大于 0")
+    private long idleTimeout = 600000;
+
+    /**
+     * 按顺序匹配，第一条匹配的规则生效；没有匹配的请求不限流
+     */
+    @Valid
+    private List<Rule> rules = new ArrayList<>();
+
+    @Data
+    public static class Rule {
+
+        /**
+         * 路径模式（Ant 风格，如 /api/videos/**）
+         */
+        @NotBlank(message = "pattern 不能为空")
+        private String pattern;
+
+        /**
+         * HTTP 方法，为空时匹配所有方法
+         */
+        private String method;
+
+        /**
+         * 桶容量（允许的突发请求数）
+         */
+        @Positive(message = "capacity 必须大于 0")
+        private int capacity;
+
+        /**
+         * 每秒补充的令牌数
+         */
+        @Positive(message = "refill-per-second 必须大于 0")
+        private double refillPerSecond;
+    }
+}
@@ -1,19 +1,25 @@
 package com.example.apidemo.config;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authorization.AuthenticatedAuthorizationManager;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
 /**
@@ -23,30 +29,71 @@ import org.springframework.security.web.authentication.UsernamePasswordAuthentic
 @EnableWebSecurity
 public class SecurityConfig {
 
+    /**
+     * 运维接口：存储迁移、孤儿文件清理、参数路径回填和各类运行统计
+     */
+    private static final String[] OPS_PATHS = {
+            "/api/storage/**",
+            "/api/interfaces/parameter-paths/backfill",
+            "/api/auth/*/stats",
+            "/api/files/*/stats",
+            "/api/interfaces/search/stats",
+            "/api/interfaces/mock/stats",
+            "/api/openapi/stats"
+    };
+
+    /**
+     * 是否开放运维接口（默认关闭，定时任务只通过配置启用）
+     */
+    @Value("${ops.api-enabled:false}")
+    private boolean opsApiEnabled;
+
     @Autowired
     private JwtAuthFilter jwtAuthFilter;
 
+    @Autowired
+    private RateLimitFilter rateLimitFilter;
+
     @Autowired
     private UserDetailsService userDetailsService;
 
+    @Autowired
+    private UserDetailsPasswordService userDetailsPasswordService;
+
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
         http
                 .csrf(csrf -> csrf.disable())
                 .cors(cors -> cors.configure(http))
                 .authorizeHttpRequests(auth -> auth
+                        // 运维接口可以触发批量删除/移动文件或暴露运行状态，必须在 permitAll 规则之前匹配
+                        .requestMatchers(OPS_PATHS).access(opsAuthorization())
                         .requestMatchers("/api/auth/**").permitAll()
+                        // 分片上传会话占用文件句柄和磁盘空间，需要登录并按用户限制会话数
+                        .requestMatchers("/api/files/uploads/**").authenticated()
                         .requestMatchers("/api/files/**").permitAll()
                         .requestMatchers("/uploads/**").permitAll()
                         .anyRequest().authenticated())
                 .sessionManagement(session -> session
                         .sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authenticationProvider(authenticationProvider())
-                .addFilterBefore(jwtAuthFilter, UsernamePasswordAuthenticationFilter.class);
+                .addFilterBefore(jwtAuthFilter, UsernamePasswordAuthenticationFilter.class)
+                // 在认证之后限流，已登录用户按用户名计数
+                .addFilterAfter(rateLimitFilter, JwtAuthFilter.class);
 
         return http.build();
     }
 
+    /**
+     * 开放运维接口时需要登录，关闭时一律拒绝
+     */
+    private AuthorizationManager<RequestAuthorizationContext> opsAuthorization() {
+        if (opsApiEnabled) {
+            return AuthenticatedAuthorizationManager.authenticated();
+        }
+        return (authentication, context) -> new AuthorizationDecision(false);
+    }
+
     @Autowired
     private PasswordEncoder passwordEncoder;
 
@@ -55,6 +102,8 @@ public class SecurityConfig {
         DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
         provider.setUserDetailsService(userDetailsService);
         provider.setPasswordEncoder(passwordEncoder);
+        // 登录成功且密码哈希强度低于当前配置时自动重新加密
+        provider.setUserDetailsPasswordService(userDetailsPasswordService);
         return provider;
     }
 
@@ -0,0 +1,47 @@
+package com.example.apidemo.config;
+
+import com.example.apidemo.service.storage.FlatStorageBackend;
+import com.example.apidemo.service.storage.MultiVolumeStorageBackend;
+import com.example.apidemo.service.storage.ShardedStorageBackend;
+import com.example.apidemo.service.storage.StorageBackend;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+/**
+ * 文件存储后端配置
+ */
+@Configuration
+public class StorageConfig {
+
+    @Value("${file.upload-dir}")
+    private String uploadDir;
+
+    /**
+     * 存储方式：flat（平铺）、sharded（哈希分片目录）、multi-volume（多卷一致性哈希）
+     */
+    @Value("${file.storage.backend:flat}")
+    private String backend;
+
+    /**
+     * 多卷存储的挂载点
+     */
+    @Value("${file.storage.volumes:}")
+    private List<String> volumes;
+
+    @Bean
+    public StorageBackend storageBackend() {
+        Path uploadPath = Paths.get(uploadDir).toAbsolutePath().normalize();
+        return switch (backend) {
+            case "sharded" -> new ShardedStorageBackend(uploadPath);
+            case "multi-volume" -> new MultiVolumeStorageBackend(volumes.isEmpty()
+                    ? List.of(uploadPath)
+                    : volumes.stream().map(volume -> Paths.get(volume).toAbsolutePath().normalize()).toList());
+            default -> new FlatStorageBackend(uploadPath);
+        };
+    }
+}
@@ -1,13 +1,31 @@
 package com.example.apidemo.controller;
 
+import com.example.apidemo.common.ParameterValidator;
+import com.example.apidemo.common.ParameterValidator.Violation;
 import com.example.apidemo.common.Result;
 import com.example.apidemo.entity.ApiInterface;
 import com.example.apidemo.entity.ApiParameter;
+import com.example.apidemo.entity.SchemaVersion;
 import com.example.apidemo.service.ApiInterfaceService;
+import com.example.apidemo.service.ApiInterfaceService.JsonExample;
+import com.example.apidemo.service.InterfaceSearchService;
+import com.example.apidemo.service.InterfaceSearchService.SearchHit;
+import com.example.apidemo.service.MockServerService;
+import com.example.apidemo.service.ParameterPathBackfillService;
+import com.example.apidemo.service.SchemaVersionService;
+import com.example.apidemo.service.SchemaVersionService.SchemaChange;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.HashMap;
+import java.io.IOException;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -21,6 +39,18 @@ public class ApiInterfaceController {
     @Autowired
     private ApiInterfaceService interfaceService;
 
+    @Autowired
+    private MockServerService mockServerService;
+
+    @Autowired
+    private InterfaceSearchService searchService;
+
+    @Autowired
+    private SchemaVersionService schemaVersionService;
+
+    @Autowired
+    private ParameterPathBackfillService pathBackfillService;
+
     /**
      * 获取所有接口
      */
@@ -35,6 +65,24 @@ public class ApiInterfaceController {
         return Result.success(interfaces);
     }
 
+    /**
+     * 全文检索接口（名称、路径、描述、参数名称和描述），按相关度排序
+     */
+    @GetMapping("/search")
+    public Result<List<SearchHit>> search(@RequestParam String q,
+            @RequestParam(required = false) Long categoryId,
+            @RequestParam(defaultValue = "20") int limit) {
+        return Result.success(searchService.search(q, categoryId, limit));
+    }
+
+    /**
+     * 检索索引统计
+     */
+    @GetMapping("/search/stats")
+    public Result<Map<String, Object>> searchStats() {
+        return Result.success(searchService.getStats());
+    }
+
     /**
      * 获取单个接口详情
      */
@@ -85,6 +133,26 @@ public class ApiInterfaceController {
         return Result.success(interfaceService.update(id, apiInterface, categoryId));
     }
 
+    /**
+     * 批量排序：按新顺序排列栏目下的全部接口
+     * 请求体：{"categoryId": 1, "ids": [3, 1, 2]}，categoryId 为空表示未分类接口
+     */
+    @PutMapping("/order")
+    public Result<Map<String, Object>> reorder(@Valid @RequestBody OrderRequest request) {
+        int updated = interfaceService.reorder(request.getCategoryId(), request.getIds());
+        return Result.success(Map.of("updated", updated));
+    }
+
+    /**
+     * 批量移动：将多个接口按给定顺序移到另一个栏目末尾
+     * 请求体：{"categoryId": 2, "ids": [3, 5]}，categoryId 为空表示移出栏目
+     */
+    @PostMapping("/move")
+    public Result<Map<String, Object>> moveToCategory(@Valid @RequestBody OrderRequest request) {
+        int updated = interfaceService.moveToCategory(request.getIds(), request.getCategoryId());
+        return Result.success(Map.of("updated", updated));
+    }
+
     /**
      * 删除接口
      */
@@ -112,13 +180,129 @@ public class ApiInterfaceController {
     }
 
     /**
-     * 生成JSON示例
+     * 获取参数子树（含该参数）
+     */
+    @GetMapping("/{id}/parameters/{parameterId}")
+    public Result<ApiParameter> getParameterSubtree(@PathVariable Long id, @PathVariable Long parameterId) {
+        return Result.success(interfaceService.getParameterSubtree(id, parameterId));
+    }
+
+    /**
+     * 移动参数（连同子参数）到另一个父参数下，parentId 为空表示移到顶层，index 为空表示放在最后
+     */
+    @PostMapping("/{id}/parameters/{parameterId}/move")
+    public Result<Void> moveParameter(@PathVariable Long id, @PathVariable Long parameterId,
+            @RequestBody Map<String, Object> requestData) {
+        Long parentId = requestData.get("parentId") != null
+                ? Long.valueOf(requestData.get("parentId").toString())
+                : null;
+        Integer index = requestData.get("index") != null
+                ? Integer.valueOf(requestData.get("index").toString())
+                : null;
+        interfaceService.moveParameter(id, parameterId, parentId, index);
+        return Result.success();
+    }
+
+    /**
+     * 删除参数（连同子参数）
+     */
+    @DeleteMapping("/{id}/parameters/{parameterId}")
+    public Result<Void> deleteParameter(@PathVariable Long id, @PathVariable Long parameterId) {
+        interfaceService.deleteParameterSubtree(id, parameterId);
+        return Result.success();
+    }
+
+    /**
+     * 启动参数路径回填
+     */
+    @PostMapping("/parameter-paths/backfill")
+    public Result<Map<String, Object>> startPathBackfill() {
+        pathBackfillService.start();
+        return Result.success(pathBackfillService.getStatus());
+    }
+
+    /**
+     * 查询参数路径回填进度
+     */
+    @GetMapping("/parameter-paths/backfill")
+    public Result<Map<String, Object>> pathBackfillStatus() {
+        return Result.success(pathBackfillService.getStatus());
+    }
+
+    /**
+     * 参数结构版本列表
+     */
+    @GetMapping("/{id}/versions")
+    public Result<List<SchemaVersion>> listVersions(@PathVariable Long id) {
+        interfaceService.findById(id);
+        return Result.success(schemaVersionService.listVersions(id));
+    }
+
+    /**
+     * 比较两个参数结构版本
+     */
+    @GetMapping("/{id}/versions/diff")
+    public Result<List<SchemaChange>> diffVersions(@PathVariable Long id, @RequestParam int from, @RequestParam int to) {
+        return Result.success(schemaVersionService.diff(id, from, to));
+    }
+
+    /**
+     * 获取某个版本的参数树
+     */
+    @GetMapping("/{id}/versions/{version}")
+    public Result<List<ApiParameter>> getVersion(@PathVariable Long id, @PathVariable int version) {
+        return Result.success(schemaVersionService.getTree(id, version));
+    }
+
+    /**
+     * 将参数恢复为某个版本
+     */
+    @PostMapping("/{id}/versions/{version}/restore")
+    public Result<Void> restoreVersion(@PathVariable Long id, @PathVariable int version) {
+        interfaceService.restoreVersion(id, version);
+        return Result.success();
+    }
+
+    /**
+     * 生成JSON示例（未变更时返回缓存，支持 If-None-Match）
      */
     @GetMapping("/{id}/json-example")
-    public Result<Map<String, Object>> getJsonExample(@PathVariable Long id) {
-        String jsonString = interfaceService.generateJsonExample(id);
-        Map<String, Object> result = new HashMap<>();
-        result.put("json", jsonString);
+    public ResponseEntity<byte[]> getJsonExample(@PathVariable Long id) {
+        JsonExample example = interfaceService.getJsonExample(id);
+        return ResponseEntity.ok()
+                .eTag(example.getEtag())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(example.getBody());
+    }
+
+    /**
+     * 按接口的参数定义校验请求体（流式读取，不缓存请求体）
+     */
+    @PostMapping("/{id}/validate")
+    public Result<Map<String, Object>> validate(@PathVariable Long id,
+            @RequestParam(defaultValue = "" + ParameterValidator.DEFAULT_MAX_VIOLATIONS) int maxViolations,
+            HttpServletRequest request) throws IOException {
+        List<Violation> violations = interfaceService.getValidator(id)
+                .validate(request.getInputStream(), maxViolations);
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("valid", violations.isEmpty());
+        result.put("violations", violations);
         return Result.success(result);
     }
+
+    /**
+     * Mock 服务统计
+     */
+    @GetMapping("/mock/stats")
+    public Result<Map<String, Object>> mockStats() {
+        return Result.success(mockServerService.getStats());
+    }
+
+    @Data
+    public static class OrderRequest {
+        private Long categoryId;
+
+        @NotEmpty(message = "ids 不能为空")
+        private List<@NotNull(message = "ids 中不能有空值") Long> ids;
+    }
 }
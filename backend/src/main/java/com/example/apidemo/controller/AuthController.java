@@ -1,20 +1,24 @@
 package com.example.apidemo.controller;
 
+import com.example.apidemo.common.BusinessException;
 import com.example.apidemo.common.Result;
 import com.example.apidemo.config.JwtUtil;
 import com.example.apidemo.entity.User;
+import com.example.apidemo.service.LoginService;
+import com.example.apidemo.service.PrincipalCache;
+import com.example.apidemo.service.TokenRevocationService;
 import com.example.apidemo.service.UserService;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotBlank;
 import lombok.Data;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.authentication.AuthenticationManager;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * 认证控制器
@@ -24,7 +28,7 @@ import java.util.Map;
 public class AuthController {
 
     @Autowired
-    private AuthenticationManager authenticationManager;
+    private LoginService loginService;
 
     @Autowired
     private UserService userService;
@@ -32,6 +36,12 @@ public class AuthController {
     @Autowired
     private JwtUtil jwtUtil;
 
+    @Autowired
+    private PrincipalCache principalCache;
+
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
     /**
      * 用户注册
      */
@@ -53,24 +63,89 @@ public class AuthController {
     }
 
     /**
-     * 用户登录
+     * 用户登录（异步处理，等待密码校验期间释放请求线程）
      */
     @PostMapping("/login")
-    public Result<Map<String, Object>> login(@Valid @RequestBody LoginRequest request) {
-        Authentication authentication = authenticationManager.authenticate(
-                new UsernamePasswordAuthenticationToken(request.getUsername(), request.getPassword()));
+    public CompletableFuture<Result<Map<String, Object>>> login(@Valid @RequestBody LoginRequest request) {
+        return loginService.authenticate(request.getUsername(), request.getPassword())
+                .thenApply(authentication -> {
+                    User user = userService.findByUsername(request.getUsername());
+                    String token = jwtUtil.generateToken(user.getUsername());
+
+                    Map<String, Object> data = new HashMap<>();
+                    data.put("token", token);
+                    data.put("user", Map.of(
+                            "id", user.getId(),
+                            "username", user.getUsername(),
+                            "nickname", user.getNickname()));
+
+                    return Result.success(data);
+                });
+    }
 
-        User user = userService.findByUsername(request.getUsername());
-        String token = jwtUtil.generateToken(user.getUsername());
+    /**
+     * 退出登录（吊销当前 Token）
+     */
+    @PostMapping("/logout")
+    public Result<Void> logout(@RequestHeader(value = "Authorization", required = false) String authHeader) {
+        tokenRevocationService.revoke(verifyToken(authHeader));
+        return Result.success();
+    }
 
-        Map<String, Object> data = new HashMap<>();
-        data.put("token", token);
-        data.put("user", Map.of(
-                "id", user.getId(),
-                "username", user.getUsername(),
-                "nickname", user.getNickname()));
+    /**
+     * 退出所有设备（吊销当前用户已签发的全部 Token）
+     */
+    @PostMapping("/revoke-all")
+    public Result<Void> revokeAll(@RequestHeader(value = "Authorization", required = false) String authHeader) {
+        tokenRevocationService.revokeAll(verifyToken(authHeader).getSubject());
+        return Result.success();
+    }
 
-        return Result.success(data);
+    /**
+     * Token 吊销列表统计
+     */
+    @GetMapping("/deny-list/stats")
+    public Result<Map<String, Object>> denyListStats() {
+        return Result.success(tokenRevocationService.getStats());
+    }
+
+    /**
+     * 登录线程池统计
+     */
+    @GetMapping("/login/stats")
+    public Result<Map<String, Object>> loginStats() {
+        return Result.success(loginService.getStats());
+    }
+
+    /**
+     * 已认证用户缓存统计
+     */
+    @GetMapping("/principal-cache/stats")
+    public Result<Map<String, Object>> principalCacheStats() {
+        return Result.success(principalCache.getStats());
+    }
+
+    /**
+     * 已验证 Token 缓存统计
+     */
+    @GetMapping("/token-cache/stats")
+    public Result<Map<String, Object>> tokenCacheStats() {
+        return Result.success(jwtUtil.getVerifiedCacheStats());
+    }
+
+    private Claims verifyToken(String authHeader) {
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            throw new BusinessException(401, "未登录");
+        }
+        try {
+            Claims claims = jwtUtil.verify(authHeader.substring(7));
+            if (tokenRevocationService.isRevoked(claims)) {
+                throw new BusinessException(401, "登录已失效");
+            }
+            return claims;
+        } catch (JwtException | IllegalArgumentException e) {
+            throw new BusinessException(401, "登录已失效");
+        }
     }
 
     @Data
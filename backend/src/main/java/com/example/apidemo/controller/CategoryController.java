@@ -3,10 +3,15 @@ package com.example.apidemo.controller;
 import com.example.apidemo.common.Result;
 import com.example.apidemo.entity.Category;
 import com.example.apidemo.service.CategoryService;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * 栏目控制器
@@ -50,6 +55,16 @@ public class CategoryController {
         return Result.success(categoryService.update(id, category));
     }
 
+    /**
+     * 批量排序：按新顺序排列全部栏目
+     * 请求体：{"ids": [3, 1, 2]}
+     */
+    @PutMapping("/order")
+    public Result<Map<String, Object>> reorder(@Valid @RequestBody OrderRequest request) {
+        int updated = categoryService.reorder(request.getIds());
+        return Result.success(Map.of("updated", updated));
+    }
+
     /**
      * 删除栏目
      */
@@ -58,4 +73,10 @@ public class CategoryController {
         categoryService.delete(id);
         return Result.success();
     }
+
+    @Data
+    public static class OrderRequest {
+        @NotEmpty(message = "ids 不能为空")
+        private List<@NotNull(message = "ids 中不能有空值") Long> ids;
+    }
 }
@@ -1,19 +1,27 @@
 package com.example.apidemo.controller;
 
+import com.example.apidemo.common.BusinessException;
+import com.example.apidemo.common.MultipartStream;
 import com.example.apidemo.common.Result;
+import com.example.apidemo.service.ChunkedUploadService;
+import com.example.apidemo.service.FileDownloadService;
 import com.example.apidemo.service.FileStorageService;
+import com.example.apidemo.service.FileStorageService.FileMetadata;
+import com.example.apidemo.service.FileStorageService.StoredFile;
+import com.example.apidemo.service.HotFileCache;
+import com.example.apidemo.service.Mp4FastStartService;
+import com.example.apidemo.service.ThumbnailService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.Resource;
-import org.springframework.core.io.UrlResource;
-import org.springframework.http.HttpHeaders;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
+import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
-import java.net.MalformedURLException;
-import java.nio.file.Path;
+import java.security.Principal;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -27,6 +35,27 @@ public class FileController {
     @Autowired
     private FileStorageService fileStorageService;
 
+    /**
+     * 流式上传的最大文件大小
+     */
+    @Value("${file.streaming.max-file-size:2147483648}")
+    private long maxStreamSize;
+
+    @Autowired
+    private FileDownloadService fileDownloadService;
+
+    @Autowired
+    private ChunkedUploadService chunkedUploadService;
+
+    @Autowired
+    private ThumbnailService thumbnailService;
+
+    @Autowired
+    private HotFileCache hotFileCache;
+
+    @Autowired
+    private Mp4FastStartService fastStartService;
+
     /**
      * 上传文件
      */
@@ -42,27 +71,146 @@ public class FileController {
     }
 
     /**
-     * 获取文件
+     * 流式上传文件（multipart/form-data，表单项名为 file）
+     * 请求体直接写入最终存储位置，不经过 Servlet 的临时文件
      */
-    @GetMapping("/{filename:.+}")
-    public ResponseEntity<Resource> getFile(@PathVariable String filename) {
-        try {
-            Path filePath = fileStorageService.getFilePath(filename);
-            Resource resource = new UrlResource(filePath.toUri());
-
-            if (resource.exists()) {
-                // 根据文件扩展名确定 Content-Type
-                String contentType = determineContentType(filename);
-
-                return ResponseEntity.ok()
-                        .contentType(MediaType.parseMediaType(contentType))
-                        .header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + resource.getFilename() + "\"")
-                        .body(resource);
-            } else {
-                return ResponseEntity.notFound().build();
+    @PostMapping("/upload/stream")
+    public Result<Map<String, Object>> uploadStream(HttpServletRequest request) throws IOException {
+        String boundary = null;
+        if (request.getContentType() != null) {
+            MediaType mediaType = MediaType.parseMediaType(request.getContentType());
+            if (MediaType.MULTIPART_FORM_DATA.includes(mediaType)) {
+                boundary = mediaType.getParameter("boundary");
             }
-        } catch (MalformedURLException e) {
-            return ResponseEntity.badRequest().build();
+        }
+        if (boundary == null) {
+            throw new BusinessException("请求必须是 multipart/form-data");
+        }
+
+        MultipartStream multipart = new MultipartStream(request.getInputStream(), StringUtils.trimTrailingCharacter(
+                StringUtils.trimLeadingCharacter(boundary, '"'), '"'));
+        while (multipart.nextPart()) {
+            if ("file".equals(multipart.getName()) && multipart.getFilename() != null) {
+                StoredFile stored = fileStorageService.storeStream(multipart.getPartStream(),
+                        multipart.getFilename(), maxStreamSize);
+
+                Map<String, Object> data = new HashMap<>();
+                data.put("filename", stored.getFilename());
+                data.put("url", "/api/files/" + stored.getFilename());
+                data.put("size", stored.getSize());
+                data.put("sha256", stored.getSha256());
+                return Result.success(data);
+            }
+        }
+        throw new BusinessException("未找到上传文件");
+    }
+
+    /**
+     * 创建分片上传会话
+     */
+    @PostMapping("/uploads")
+    public Result<Map<String, Object>> initUpload(@RequestBody Map<String, Object> requestData,
+            Principal principal) {
+        String filename = (String) requestData.get("filename");
+        Object sizeObj = requestData.get("size");
+        if (sizeObj == null) {
+            throw new BusinessException("文件大小不能为空");
+        }
+        return Result.success(chunkedUploadService.init(principal.getName(), filename, Long.parseLong(sizeObj.toString())));
+    }
+
+    /**
+     * 上传分片（请求体为分片原始字节）
+     */
+    @PutMapping("/uploads/{uploadId}")
+    public Result<Map<String, String>> uploadChunk(@PathVariable String uploadId,
+            @RequestParam long offset,
+            @RequestHeader(value = "X-Chunk-Checksum", required = false) String checksum,
+            HttpServletRequest request, Principal principal) throws IOException {
+        String actual = chunkedUploadService.writeChunk(principal.getName(), uploadId, offset,
+                request.getContentLengthLong(), checksum, request.getInputStream());
+
+        Map<String, String> data = new HashMap<>();
+        data.put("checksum", actual);
+        return Result.success(data);
+    }
+
+    /**
+     * 查询分片上传进度
+     */
+    @GetMapping("/uploads/{uploadId}")
+    public Result<Map<String, Object>> uploadStatus(@PathVariable String uploadId, Principal principal) {
+        return Result.success(chunkedUploadService.status(principal.getName(), uploadId));
+    }
+
+    /**
+     * 完成分片上传
+     */
+    @PostMapping("/uploads/{uploadId}/commit")
+    public Result<Map<String, String>> commitUpload(@PathVariable String uploadId, Principal principal) {
+        String filename = chunkedUploadService.commit(principal.getName(), uploadId);
+
+        Map<String, String> data = new HashMap<>();
+        data.put("filename", filename);
+        data.put("url", "/api/files/" + filename);
+
+        return Result.success(data);
+    }
+
+    /**
+     * 取消分片上传
+     */
+    @DeleteMapping("/uploads/{uploadId}")
+    public Result<Void> abortUpload(@PathVariable String uploadId, Principal principal) {
+        chunkedUploadService.abort(principal.getName(), uploadId);
+        return Result.success();
+    }
+
+    /**
+     * 缩略图生成队列统计
+     */
+    @GetMapping("/thumbnails/stats")
+    public Result<Map<String, Object>> thumbnailStats() {
+        return Result.success(thumbnailService.getStats());
+    }
+
+    /**
+     * 小文件缓存统计
+     */
+    @GetMapping("/cache/stats")
+    public Result<Map<String, Object>> cacheStats() {
+        return Result.success(hotFileCache.getStats());
+    }
+
+    /**
+     * 视频 moov 前置处理统计
+     */
+    @GetMapping("/faststart/stats")
+    public Result<Map<String, Object>> fastStartStats() {
+        return Result.success(fastStartService.getStats());
+    }
+
+    /**
+     * 获取文件（支持 Range 断点续传与条件请求）
+     *
+     * @param size 缩略图宽度，缩略图未生成时返回原图
+     */
+    @GetMapping("/{filename:.+}")
+    public void getFile(@PathVariable String filename, @RequestParam(required = false) Integer size,
+            HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String contentType = determineContentType(filename);
+        if (size == null || !thumbnailService.supports(filename)) {
+            fileDownloadService.serve(filename, contentType, request, response);
+            return;
+        }
+
+        FileMetadata derivative = thumbnailService.getDerivative(filename, size);
+        if (derivative != null) {
+            fileDownloadService.serve(derivative, filename, contentType,
+                    FileDownloadService.CACHE_CONTROL, request, response);
+        } else {
+            fileDownloadService.serve(fileStorageService.getFileMetadata(filename), filename, contentType,
+                    FileDownloadService.CACHE_CONTROL_SHORT, request, response);
         }
     }
 
@@ -0,0 +1,49 @@
+package com.example.apidemo.controller;
+
+import com.example.apidemo.common.Result;
+import com.example.apidemo.service.OpenApiService;
+import com.example.apidemo.service.OpenApiService.OpenApiDocument;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+/**
+ * OpenAPI 文档控制器
+ */
+@RestController
+@RequestMapping("/api/openapi")
+public class OpenApiController {
+
+    @Autowired
+    private OpenApiService openApiService;
+
+    /**
+     * 获取 OpenAPI 3 文档（客户端支持时返回 gzip 压缩内容，支持 If-None-Match）
+     */
+    @GetMapping
+    public ResponseEntity<byte[]> document(
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        OpenApiDocument document = openApiService.getDocument();
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .varyBy(HttpHeaders.ACCEPT_ENCODING);
+        if (acceptEncoding != null && acceptEncoding.contains("gzip")) {
+            return builder.header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                    .eTag(document.getGzipEtag())
+                    .body(document.getGzipBody());
+        }
+        return builder.eTag(document.getEtag()).body(document.getBody());
+    }
+
+    /**
+     * 文档统计
+     */
+    @GetMapping("/stats")
+    public Result<Map<String, Object>> stats() {
+        return Result.success(openApiService.getStats());
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.apidemo.controller;
+
+import com.example.apidemo.common.Result;
+import com.example.apidemo.service.OrphanFileService;
+import com.example.apidemo.service.StorageMigrationService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+/**
+ * 存储管理控制器
+ */
+@RestController
+@RequestMapping("/api/storage")
+public class StorageController {
+
+    @Autowired
+    private StorageMigrationService migrationService;
+
+    @Autowired
+    private OrphanFileService orphanFileService;
+
+    /**
+     * 启动存储迁移
+     */
+    @PostMapping("/migration")
+    public Result<Map<String, Object>> startMigration() {
+        migrationService.start();
+        return Result.success(migrationService.getStatus());
+    }
+
+    /**
+     * 查询迁移进度
+     */
+    @GetMapping("/migration")
+    public Result<Map<String, Object>> migrationStatus() {
+        return Result.success(migrationService.getStatus());
+    }
+
+    /**
+     * 启动孤儿文件清理
+     *
+     * @param dryRun 为 true 时只生成报告不删除
+     */
+    @PostMapping("/sweep")
+    public Result<Map<String, Object>> startSweep(@RequestParam(defaultValue = "true") boolean dryRun) {
+        orphanFileService.start(dryRun);
+        return Result.success(orphanFileService.getStatus());
+    }
+
+    /**
+     * 查询清理进度与报告
+     */
+    @GetMapping("/sweep")
+    public Result<Map<String, Object>> sweepStatus() {
+        return Result.success(orphanFileService.getStatus());
+    }
+}
@@ -18,12 +18,15 @@ import java.util.List;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "api_parameters")
+@Table(name = "api_parameters",
+        indexes = @Index(name = "idx_api_parameters_interface_path", columnList = "interface_id, path"))
 @JsonIgnoreProperties({ "hibernateLazyInitializer", "handler" })
 public class ApiParameter {
 
+    /**
+     * 由 IdAllocator 按号段分配（id_blocks），参数只通过 JDBC 批量插入，不使用自增主键
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
     /**
@@ -86,6 +89,13 @@ public class ApiParameter {
     @Column(name = "sort_order")
     private Integer sortOrder = 0;
 
+    /**
+     * 物化路径：/祖先ID/.../自身ID/，用于按前缀查询、移动、删除子树（内部字段，不输出）
+     */
+    @Column(length = 700)
+    @JsonIgnore
+    private String path;
+
     @PrePersist
     protected void onCreate() {
         if (sortOrder == null) {
@@ -0,0 +1,38 @@
+package com.example.apidemo.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 文件名别名实体
+ * 对外暴露的文件名（/api/files/{filename}）到内容摘要的映射
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "file_aliases", indexes = @Index(name = "idx_file_aliases_digest", columnList = "digest"))
+public class FileAlias {
+
+    @Id
+    @Column(length = 100)
+    private String filename;
+
+    /**
+     * 内容 SHA-256
+     */
+    @Column(nullable = false, length = 64)
+    private String digest;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
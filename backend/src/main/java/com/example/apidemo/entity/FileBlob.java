@@ -0,0 +1,49 @@
+package com.example.apidemo.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 文件内容实体（按内容摘要去重存储）
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "file_blobs")
+public class FileBlob {
+
+    /**
+     * 内容 SHA-256（十六进制）
+     */
+    @Id
+    @Column(length = 64)
+    private String digest;
+
+    /**
+     * 文件大小（字节）
+     */
+    @Column(nullable = false)
+    private Long size;
+
+    /**
+     * 引用计数（指向该内容的文件名数量）
+     */
+    @Column(name = "ref_count", nullable = false)
+    private Integer refCount = 1;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        if (refCount == null) {
+            refCount = 1;
+        }
+    }
+}
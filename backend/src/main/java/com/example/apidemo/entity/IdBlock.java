@@ -0,0 +1,28 @@
+package com.example.apidemo.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * ID 号段
+ * 记录每张表下一个可分配的 ID，批量插入前一次取一段，见 {@link com.example.apidemo.service.IdAllocator}
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "id_blocks")
+public class IdBlock {
+
+    /**
+     * 表名
+     */
+    @Id
+    @Column(length = 100)
+    private String name;
+
+    @Column(name = "next_id", nullable = false)
+    private Long nextId;
+}
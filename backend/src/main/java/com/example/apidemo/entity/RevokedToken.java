@@ -0,0 +1,42 @@
+package com.example.apidemo.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 已吊销的 Token
+ * tokenId 不为空时吊销单个 Token（退出登录）；为空时吊销该用户在 revokedAt 之前签发的全部 Token
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "revoked_tokens", indexes = @Index(name = "idx_revoked_tokens_expires_at", columnList = "expires_at"))
+public class RevokedToken {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * Token 的 jti
+     */
+    @Column(name = "token_id", length = 64)
+    private String tokenId;
+
+    @Column(nullable = false, length = 50)
+    private String username;
+
+    @Column(name = "revoked_at", nullable = false)
+    private LocalDateTime revokedAt;
+
+    /**
+     * 过期时间，之后相关 Token 已自然失效，记录可以删除
+     */
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+}
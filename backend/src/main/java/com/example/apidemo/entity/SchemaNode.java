@@ -0,0 +1,52 @@
+package com.example.apidemo.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 参数结构节点（按内容寻址）
+ * 主键为节点内容（属性 + 有序子节点哈希）的 SHA-256，内容相同的子树在各版本、各接口之间只存一份，写入后不再修改
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "schema_nodes")
+public class SchemaNode {
+
+    /**
+     * 内容哈希（64 位十六进制）
+     */
+    @Id
+    @Column(length = 64)
+    private String hash;
+
+    /**
+     * 参数名，根节点为 null
+     */
+    @Column(length = 100)
+    private String name;
+
+    /**
+     * 参数类型，根节点为 root
+     */
+    @Column(length = 20)
+    private String type;
+
+    @Column(nullable = false)
+    private Boolean required = false;
+
+    @Column(length = 500)
+    private String description;
+
+    @Column(name = "example_value", length = 500)
+    private String exampleValue;
+
+    /**
+     * 子节点哈希，按顺序直接拼接（每个 64 个字符）；MEDIUMTEXT 最多容纳约 26 万个子节点（TEXT 只有约 1000 个）
+     */
+    @Column(columnDefinition = "MEDIUMTEXT")
+    private String children;
+}
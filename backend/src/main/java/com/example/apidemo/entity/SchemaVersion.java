@@ -0,0 +1,52 @@
+package com.example.apidemo.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 接口参数结构版本
+ * 每次保存参数记录一个版本，只保存根节点哈希，参数树由 schema_nodes 按哈希展开
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "schema_versions",
+        uniqueConstraints = @UniqueConstraint(name = "uk_schema_versions_interface_version",
+                columnNames = { "interface_id", "version" }))
+public class SchemaVersion {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "interface_id", nullable = false)
+    private Long interfaceId;
+
+    /**
+     * 版本号，每个接口从 1 开始递增
+     */
+    @Column(nullable = false)
+    private Integer version;
+
+    @Column(name = "root_hash", nullable = false, length = 64)
+    private String rootHash;
+
+    /**
+     * 参数个数
+     */
+    @Column(name = "node_count")
+    private Integer nodeCount;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.apidemo.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -14,7 +15,9 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "videos")
+@Table(name = "videos", indexes = {
+        @Index(name = "idx_videos_video_file", columnList = "video_file"),
+        @Index(name = "idx_videos_cover_file", columnList = "cover_file") })
 public class Video {
 
     @Id
@@ -36,6 +39,20 @@ public class Video {
     @Column(name = "cover_url", length = 500)
     private String coverUrl;
 
+    /**
+     * 从 videoUrl 解析出的本地文件名（外部地址为 null），用于按文件名精确查找引用
+     */
+    @Column(name = "video_file")
+    @JsonIgnore
+    private String videoFile;
+
+    /**
+     * 从 coverUrl 解析出的本地文件名（外部地址为 null）
+     */
+    @Column(name = "cover_file")
+    @JsonIgnore
+    private String coverFile;
+
     @Column(name = "category_id")
     private Long categoryId;
 
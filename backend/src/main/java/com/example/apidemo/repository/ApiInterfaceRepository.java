@@ -1,10 +1,15 @@
 package com.example.apidemo.repository;
 
 import com.example.apidemo.entity.ApiInterface;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 
 /**
  * API接口数据访问层
@@ -21,4 +26,11 @@ public interface ApiInterfaceRepository extends JpaRepository<ApiInterface, Long
      * 查询所有接口，按排序字段排序
      */
     List<ApiInterface> findAllByOrderBySortOrderAsc();
+
+    /**
+     * 查询并锁定接口（SELECT ... FOR UPDATE），同一接口的参数修改依次执行
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select i from ApiInterface i where i.id = :id")
+    Optional<ApiInterface> findByIdForUpdate(@Param("id") Long id);
 }
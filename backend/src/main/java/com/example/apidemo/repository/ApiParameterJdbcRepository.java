@@ -0,0 +1,252 @@
+package com.example.apidemo.repository;
+
+import lombok.Data;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * API参数批量数据访问层
+ * 保存参数树时按差异批量执行插入/更新/删除（JDBC batch），ID 由调用方预先分配。
+ * 每个参数带物化路径（/祖先ID/.../自身ID/），子树查询、移动、删除按路径前缀各用一条语句完成
+ */
+@Repository
+public class ApiParameterJdbcRepository {
+
+    public static final String TABLE = "api_parameters";
+
+    /**
+     * 物化路径最大长度，与 api_parameters.path 列长度一致
+     */
+    public static final int MAX_PATH_LENGTH = 700;
+
+    private static final int BATCH_SIZE = 500;
+
+    private static final String COLUMNS =
+            "id, interface_id, parent_id, name, type, required, description, example_value, sort_order, path";
+
+    private static final RowMapper<ParameterRow> ROW_MAPPER = (rs, rowNum) -> {
+        ParameterRow row = new ParameterRow();
+        row.setId(rs.getLong("id"));
+        row.setInterfaceId(rs.getLong("interface_id"));
+        row.setParentId(rs.getObject("parent_id", Long.class));
+        row.setName(rs.getString("name"));
+        row.setType(rs.getString("type"));
+        row.setRequired(rs.getBoolean("required"));
+        row.setDescription(rs.getString("description"));
+        row.setExampleValue(rs.getString("example_value"));
+        row.setSortOrder(rs.getInt("sort_order"));
+        row.setPath(rs.getString("path"));
+        return row;
+    };
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * 查询接口的全部参数（扁平列表，同级参数按排序号排列）
+     */
+    public List<ParameterRow> findByInterfaceId(Long interfaceId) {
+        return jdbcTemplate.query(
+                "SELECT " + COLUMNS + " FROM api_parameters WHERE interface_id = ? ORDER BY sort_order, id",
+                ROW_MAPPER, interfaceId);
+    }
+
+    /**
+     * 查询所有接口的参数（按接口分组，组内同级参数按排序号排列）
+     */
+    public List<ParameterRow> findAll() {
+        return jdbcTemplate.query(
+                "SELECT " + COLUMNS + " FROM api_parameters ORDER BY interface_id, sort_order, id",
+                ROW_MAPPER);
+    }
+
+    /**
+     * 查询接口的单个参数，不存在时返回 null
+     */
+    public ParameterRow findById(Long interfaceId, Long id) {
+        List<ParameterRow> rows = jdbcTemplate.query(
+                "SELECT " + COLUMNS + " FROM api_parameters WHERE interface_id = ? AND id = ?",
+                ROW_MAPPER, interfaceId, id);
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    /**
+     * 按路径前缀查询子树（含根参数，同级参数按排序号排列）
+     */
+    public List<ParameterRow> findSubtree(Long interfaceId, String path) {
+        return jdbcTemplate.query(
+                "SELECT " + COLUMNS + " FROM api_parameters WHERE interface_id = ? AND path LIKE ? "
+                        + "ORDER BY sort_order, id",
+                ROW_MAPPER, interfaceId, path + "%");
+    }
+
+    /**
+     * 查询还有参数未生成路径的接口ID（按ID分页）
+     */
+    public List<Long> findInterfaceIdsWithoutPath(long afterInterfaceId, int limit) {
+        return jdbcTemplate.queryForList(
+                "SELECT DISTINCT interface_id FROM api_parameters WHERE path IS NULL AND interface_id > ? "
+                        + "ORDER BY interface_id LIMIT ?",
+                Long.class, afterInterfaceId, limit);
+    }
+
+    /**
+     * 批量插入（父参数需排在子参数之前）
+     */
+    public void batchInsert(Long interfaceId, List<ParameterRow> rows) {
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO api_parameters (" + COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                rows, BATCH_SIZE, (ps, row) -> {
+                    ps.setLong(1, row.getId());
+                    ps.setLong(2, interfaceId);
+                    ps.setObject(3, row.getParentId());
+                    ps.setString(4, row.getName());
+                    ps.setString(5, row.getType());
+                    ps.setBoolean(6, row.isRequired());
+                    ps.setString(7, row.getDescription());
+                    ps.setString(8, row.getExampleValue());
+                    ps.setInt(9, row.getSortOrder());
+                    ps.setString(10, row.getPath());
+                });
+    }
+
+    /**
+     * 批量更新
+     */
+    public void batchUpdate(List<ParameterRow> rows) {
+        jdbcTemplate.batchUpdate(
+                "UPDATE api_parameters SET parent_id = ?, name = ?, type = ?, required = ?, description = ?, "
+                        + "example_value = ?, sort_order = ?, path = ? WHERE id = ?",
+                rows, BATCH_SIZE, (ps, row) -> {
+                    ps.setObject(1, row.getParentId());
+                    ps.setString(2, row.getName());
+                    ps.setString(3, row.getType());
+                    ps.setBoolean(4, row.isRequired());
+                    ps.setString(5, row.getDescription());
+                    ps.setString(6, row.getExampleValue());
+                    ps.setInt(7, row.getSortOrder());
+                    ps.setString(8, row.getPath());
+                    ps.setLong(9, row.getId());
+                });
+    }
+
+    /**
+     * 批量补写路径（只写入路径为空的行，不覆盖并发保存写入的路径）
+     *
+     * @return 更新的行数
+     */
+    public int batchFillPaths(List<ParameterRow> rows) {
+        int[][] counts = jdbcTemplate.batchUpdate(
+                "UPDATE api_parameters SET path = ? WHERE id = ? AND path IS NULL",
+                rows, BATCH_SIZE, (ps, row) -> {
+                    ps.setString(1, row.getPath());
+                    ps.setLong(2, row.getId());
+                });
+        int updated = 0;
+        for (int[] batch : counts) {
+            for (int count : batch) {
+                updated += Math.max(count, 0);
+            }
+        }
+        return updated;
+    }
+
+    /**
+     * 修改参数的父参数和排序号
+     */
+    public void updateParent(Long id, Long parentId, int sortOrder) {
+        jdbcTemplate.update("UPDATE api_parameters SET parent_id = ?, sort_order = ? WHERE id = ?",
+                parentId, sortOrder, id);
+    }
+
+    /**
+     * 同级参数中排序号不小于 fromSortOrder 的后移一位
+     */
+    public void shiftSortOrders(Long interfaceId, Long parentId, int fromSortOrder) {
+        if (parentId == null) {
+            jdbcTemplate.update("UPDATE api_parameters SET sort_order = sort_order + 1 "
+                    + "WHERE interface_id = ? AND parent_id IS NULL AND sort_order >= ?", interfaceId, fromSortOrder);
+        } else {
+            jdbcTemplate.update("UPDATE api_parameters SET sort_order = sort_order + 1 "
+                    + "WHERE interface_id = ? AND parent_id = ? AND sort_order >= ?", interfaceId, parentId, fromSortOrder);
+        }
+    }
+
+    /**
+     * 子树整体换到新路径下（含根参数）
+     */
+    public int movePaths(Long interfaceId, String oldPath, String newPath) {
+        return jdbcTemplate.update(
+                "UPDATE api_parameters SET path = CONCAT(?, SUBSTRING(path, ?)) WHERE interface_id = ? AND path LIKE ?",
+                newPath, oldPath.length() + 1, interfaceId, oldPath + "%");
+    }
+
+    /**
+     * 删除子树（含根参数）
+     * 先断开子树内的 parent_id 引用，避免单条 DELETE 内先删父参数时违反外键
+     *
+     * @return 删除的行数
+     */
+    public int deleteSubtree(Long interfaceId, String path) {
+        jdbcTemplate.update("UPDATE api_parameters SET parent_id = NULL WHERE interface_id = ? AND path LIKE ?",
+                interfaceId, path + "%");
+        return jdbcTemplate.update("DELETE FROM api_parameters WHERE interface_id = ? AND path LIKE ?",
+                interfaceId, path + "%");
+    }
+
+    /**
+     * 子参数的路径
+     */
+    public static String childPath(String parentPath, Long id) {
+        return (parentPath != null ? parentPath : "/") + id + "/";
+    }
+
+    /**
+     * 批量删除（子参数需排在父参数之前）
+     */
+    public void batchDelete(List<Long> ids) {
+        jdbcTemplate.batchUpdate("DELETE FROM api_parameters WHERE id = ?",
+                ids, BATCH_SIZE, (ps, id) -> ps.setLong(1, id));
+    }
+
+    /**
+     * 参数行
+     */
+    @Data
+    public static class ParameterRow {
+
+        private Long id;
+        private Long interfaceId;
+        private Long parentId;
+        private String name;
+        private String type;
+        private boolean required;
+        private String description;
+        private String exampleValue;
+        private int sortOrder;
+
+        /**
+         * 物化路径：/祖先ID/.../自身ID/，回填前为 null
+         */
+        private String path;
+
+        public ParameterRow copy() {
+            ParameterRow row = new ParameterRow();
+            row.setId(id);
+            row.setInterfaceId(interfaceId);
+            row.setParentId(parentId);
+            row.setName(name);
+            row.setType(type);
+            row.setRequired(required);
+            row.setDescription(description);
+            row.setExampleValue(exampleValue);
+            row.setSortOrder(sortOrder);
+            row.setPath(path);
+            return row;
+        }
+    }
+}
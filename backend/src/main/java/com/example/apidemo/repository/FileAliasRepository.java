@@ -0,0 +1,17 @@
+package com.example.apidemo.repository;
+
+import com.example.apidemo.entity.FileAlias;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * 文件名别名数据访问层
+ */
+@Repository
+public interface FileAliasRepository extends JpaRepository<FileAlias, String> {
+
+    List<FileAlias> findByFilenameGreaterThanOrderByFilenameAsc(String filename, Pageable pageable);
+}
@@ -0,0 +1,24 @@
+package com.example.apidemo.repository;
+
+import com.example.apidemo.entity.FileBlob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * 文件内容数据访问层
+ */
+@Repository
+public interface FileBlobRepository extends JpaRepository<FileBlob, String> {
+
+    /**
+     * 调整引用计数
+     */
+    @Modifying
+    @Transactional
+    @Query("update FileBlob b set b.refCount = b.refCount + :delta where b.digest = :digest")
+    int addRefCount(@Param("digest") String digest, @Param("delta") int delta);
+}
@@ -0,0 +1,81 @@
+package com.example.apidemo.repository;
+
+import com.example.apidemo.entity.SchemaNode;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 参数结构节点批量数据访问层
+ */
+@Repository
+public class SchemaNodeJdbcRepository {
+
+    private static final int BATCH_SIZE = 500;
+
+    /**
+     * children 列（MEDIUMTEXT）的最大长度
+     */
+    public static final int MAX_CHILDREN_LENGTH = 16_777_215;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * 将早期建成 TEXT 的 children 列扩为 MEDIUMTEXT（ddl-auto: update 不会修改已有列的类型）
+     */
+    public void widenChildrenColumn() {
+        List<String> types = jdbcTemplate.queryForList("SELECT DATA_TYPE FROM information_schema.COLUMNS "
+                + "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'schema_nodes' AND COLUMN_NAME = 'children'",
+                String.class);
+        if (!types.isEmpty() && "text".equalsIgnoreCase(types.get(0))) {
+            jdbcTemplate.execute("ALTER TABLE schema_nodes MODIFY children MEDIUMTEXT");
+        }
+    }
+
+    /**
+     * 按哈希批量查询节点，不存在的哈希不返回
+     */
+    public List<SchemaNode> findByHashes(Collection<String> hashes) {
+        if (hashes.isEmpty()) {
+            return List.of();
+        }
+        List<String> all = new ArrayList<>(hashes);
+        List<SchemaNode> nodes = new ArrayList<>(all.size());
+        for (int start = 0; start < all.size(); start += BATCH_SIZE) {
+            List<String> batch = all.subList(start, Math.min(start + BATCH_SIZE, all.size()));
+            String placeholders = String.join(",", Collections.nCopies(batch.size(), "?"));
+            nodes.addAll(jdbcTemplate.query(
+                    "SELECT hash, name, type, required, description, example_value, children "
+                            + "FROM schema_nodes WHERE hash IN (" + placeholders + ")",
+                    (rs, rowNum) -> new SchemaNode(rs.getString("hash"), rs.getString("name"),
+                            rs.getString("type"), rs.getBoolean("required"), rs.getString("description"),
+                            rs.getString("example_value"), rs.getString("children")),
+                    batch.toArray()));
+        }
+        return nodes;
+    }
+
+    /**
+     * 批量插入节点，已存在的哈希忽略（内容相同）
+     */
+    public void batchInsert(List<SchemaNode> nodes) {
+        jdbcTemplate.batchUpdate(
+                "INSERT IGNORE INTO schema_nodes (hash, name, type, required, description, example_value, children) "
+                        + "VALUES (?, ?, ?, ?, ?, ?, ?)",
+                nodes, BATCH_SIZE, (ps, node) -> {
+                    ps.setString(1, node.getHash());
+                    ps.setString(2, node.getName());
+                    ps.setString(3, node.getType());
+                    ps.setBoolean(4, Boolean.TRUE.equals(node.getRequired()));
+                    ps.setString(5, node.getDescription());
+                    ps.setString(6, node.getExampleValue());
+                    ps.setString(7, node.getChildren());
+                });
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.apidemo.repository;
+
+import com.example.apidemo.entity.SchemaVersion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * 参数结构版本数据访问层
+ */
+@Repository
+public interface SchemaVersionRepository extends JpaRepository<SchemaVersion, Long> {
+
+    List<SchemaVersion> findByInterfaceIdOrderByVersionDesc(Long interfaceId);
+
+    Optional<SchemaVersion> findByInterfaceIdAndVersion(Long interfaceId, Integer version);
+
+    Optional<SchemaVersion> findFirstByInterfaceIdOrderByVersionDesc(Long interfaceId);
+
+    /**
+     * 删除接口的全部版本（节点可能被其他版本共用，不删除）
+     */
+    @Modifying
+    @Query("delete from SchemaVersion v where v.interfaceId = :interfaceId")
+    int deleteByInterfaceId(@Param("interfaceId") Long interfaceId);
+}
@@ -0,0 +1,108 @@
+package com.example.apidemo.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * 接口、栏目排序批量数据访问层
+ * 读取时加行锁（SELECT ... FOR UPDATE），并发的排序请求依次执行，不会基于过期的排序号计算
+ */
+@Repository
+public class SortOrderJdbcRepository {
+
+    public static final String INTERFACES = "api_interfaces";
+
+    public static final String CATEGORIES = "categories";
+
+    private static final int BATCH_SIZE = 500;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * 锁定并查询栏目下接口的排序号（categoryId 为 null 表示未分类接口）
+     *
+     * @return 接口ID -> 排序号（按排序号排列）
+     */
+    public Map<Long, Integer> lockInterfaceOrders(Long categoryId) {
+        String where = categoryId != null ? "category_id = ?" : "category_id IS NULL";
+        Object[] args = categoryId != null ? new Object[] { categoryId } : new Object[0];
+        return queryOrders("SELECT id, sort_order FROM api_interfaces WHERE " + where
+                + " ORDER BY sort_order, id FOR UPDATE", args);
+    }
+
+    /**
+     * 锁定并查询全部栏目的排序号
+     *
+     * @return 栏目ID -> 排序号（按排序号排列）
+     */
+    public Map<Long, Integer> lockCategoryOrders() {
+        return queryOrders("SELECT id, sort_order FROM categories ORDER BY sort_order, id FOR UPDATE");
+    }
+
+    /**
+     * 锁定并查询指定接口的栏目
+     *
+     * @return 接口ID -> 栏目ID（不存在的接口不返回）
+     */
+    public Map<Long, Long> lockInterfaceCategories(Collection<Long> interfaceIds) {
+        Map<Long, Long> categories = new HashMap<>(interfaceIds.size() * 2);
+        List<Long> ids = new ArrayList<>(interfaceIds);
+        for (int start = 0; start < ids.size(); start += BATCH_SIZE) {
+            List<Long> batch = ids.subList(start, Math.min(start + BATCH_SIZE, ids.size()));
+            String placeholders = String.join(",", Collections.nCopies(batch.size(), "?"));
+            jdbcTemplate.query("SELECT id, category_id FROM api_interfaces WHERE id IN (" + placeholders
+                    + ") FOR UPDATE", rs -> {
+                categories.put(rs.getLong("id"), rs.getObject("category_id", Long.class));
+            }, batch.toArray());
+        }
+        return categories;
+    }
+
+    /**
+     * 批量修改排序号
+     *
+     * @param table {@link #INTERFACES} 或 {@link #CATEGORIES}
+     */
+    public void batchUpdateSortOrders(String table, Map<Long, Integer> sortOrders) {
+        if (!INTERFACES.equals(table) && !CATEGORIES.equals(table)) {
+            throw new IllegalArgumentException(table);
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate("UPDATE " + table + " SET sort_order = ?, updated_at = ? WHERE id = ?",
+                new ArrayList<>(sortOrders.entrySet()), BATCH_SIZE, (ps, entry) -> {
+                    ps.setInt(1, entry.getValue());
+                    ps.setTimestamp(2, now);
+                    ps.setLong(3, entry.getKey());
+                });
+    }
+
+    /**
+     * 批量修改接口的栏目和排序号
+     *
+     * @param sortOrders 接口ID -> 新栏目下的排序号
+     */
+    public void batchMoveInterfaces(Long categoryId, Map<Long, Integer> sortOrders) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate("UPDATE api_interfaces SET category_id = ?, sort_order = ?, updated_at = ? WHERE id = ?",
+                new ArrayList<>(sortOrders.entrySet()), BATCH_SIZE, (ps, entry) -> {
+                    ps.setObject(1, categoryId);
+                    ps.setInt(2, entry.getValue());
+                    ps.setTimestamp(3, now);
+                    ps.setLong(4, entry.getKey());
+                });
+    }
+
+    private Map<Long, Integer> queryOrders(String sql, Object... args) {
+        Map<Long, Integer> orders = new LinkedHashMap<>();
+        jdbcTemplate.query(sql, rs -> {
+            orders.put(rs.getLong("id"), rs.getObject("sort_order", Integer.class));
+        }, args);
+        return orders;
+    }
+}
@@ -1,8 +1,13 @@
 package com.example.apidemo.repository;
 
 import com.example.apidemo.entity.Video;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 
@@ -15,4 +20,32 @@ public interface VideoRepository extends JpaRepository<Video, Long> {
     List<Video> findByCategoryIdOrderByPublishTimeDesc(Long categoryId);
 
     List<Video> findAllByOrderByPublishTimeDesc();
+
+    /**
+     * 按 ID 分批读取文件地址（id, videoUrl, coverUrl）
+     */
+    @Query("SELECT v.id, v.videoUrl, v.coverUrl FROM Video v WHERE v.id > :afterId ORDER BY v.id")
+    List<Object[]> findFileUrlsAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    /**
+     * 按 ID 分批读取尚未解析文件名的视频地址（id, videoUrl, coverUrl）
+     */
+    @Query("SELECT v.id, v.videoUrl, v.coverUrl FROM Video v WHERE v.id > :afterId"
+            + " AND ((v.videoUrl IS NOT NULL AND v.videoFile IS NULL) OR (v.coverUrl IS NOT NULL AND v.coverFile IS NULL))"
+            + " ORDER BY v.id")
+    List<Object[]> findUnresolvedFileUrlsAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    /**
+     * 写入解析出的文件名（不修改 updatedAt）
+     */
+    @Modifying
+    @Transactional
+    @Query("update Video v set v.videoFile = :videoFile, v.coverFile = :coverFile where v.id = :id")
+    int updateFileNames(@Param("id") Long id, @Param("videoFile") String videoFile,
+            @Param("coverFile") String coverFile);
+
+    /**
+     * 是否有视频引用该文件（按文件名列精确匹配，走索引）
+     */
+    boolean existsByVideoFileOrCoverFile(String videoFile, String coverFile);
 }
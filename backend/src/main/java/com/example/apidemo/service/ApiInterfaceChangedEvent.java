@@ -0,0 +1,20 @@
+package com.example.apidemo.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 接口定义变更事件（接口新增/修改/删除、参数保存）
+ * 在事务内发布，监听方使用 @TransactionalEventListener 在提交后处理
+ */
+@Getter
+@AllArgsConstructor
+public class ApiInterfaceChangedEvent {
+
+    private final Long interfaceId;
+
+    /**
+     * 接口是否已被删除
+     */
+    private final boolean deleted;
+}
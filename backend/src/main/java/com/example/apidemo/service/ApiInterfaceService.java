@@ -1,20 +1,36 @@
 package com.example.apidemo.service;
 
 import com.example.apidemo.common.BusinessException;
+import com.example.apidemo.common.ParameterValidator;
+import com.example.apidemo.common.Result;
+import com.example.apidemo.common.SparseOrdering;
 import com.example.apidemo.entity.ApiInterface;
 import com.example.apidemo.entity.ApiParameter;
 import com.example.apidemo.entity.Category;
 import com.example.apidemo.repository.ApiInterfaceRepository;
+import com.example.apidemo.repository.ApiParameterJdbcRepository;
+import com.example.apidemo.repository.ApiParameterJdbcRepository.ParameterRow;
 import com.example.apidemo.repository.ApiParameterRepository;
 import com.example.apidemo.repository.CategoryRepository;
-import com.fasterxml.jackson.core.JsonProcessingException;
+import com.example.apidemo.repository.SchemaVersionRepository;
+import com.example.apidemo.repository.SortOrderJdbcRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.DigestUtils;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * API接口管理服务
@@ -31,8 +47,50 @@ public class ApiInterfaceService {
     @Autowired
     private CategoryRepository categoryRepository;
 
+    @Autowired
+    private ApiParameterJdbcRepository parameterJdbcRepository;
+
+    @Autowired
+    private IdAllocator idAllocator;
+
+    @Autowired
+    private SchemaVersionService schemaVersionService;
+
+    @Autowired
+    private SchemaVersionRepository schemaVersionRepository;
+
+    @Autowired
+    private ParameterPathBackfillService pathBackfillService;
+
+    @Autowired
+    private SortOrderJdbcRepository sortOrderJdbcRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    /**
+     * 用于序列化统一返回体（不缩进）
+     */
+    @Autowired
+    private ObjectMapper responseMapper;
+
     private final ObjectMapper objectMapper;
 
+    /**
+     * 接口ID -> 定义版本号，接口或参数变更提交后递增
+     */
+    private final Map<Long, Long> versions = new ConcurrentHashMap<>();
+
+    /**
+     * 接口ID -> 已生成的JSON示例
+     */
+    private final Map<Long, JsonExample> exampleCache = new ConcurrentHashMap<>();
+
+    /**
+     * 接口ID -> 已编译的参数校验器
+     */
+    private final Map<Long, CompiledValidator> validatorCache = new ConcurrentHashMap<>();
+
     public ApiInterfaceService() {
         this.objectMapper = new ObjectMapper();
         this.objectMapper.enable(SerializationFeature.INDENT_OUTPUT);
@@ -70,7 +128,9 @@ public class ApiInterfaceService {
                     .orElseThrow(() -> new BusinessException("栏目不存在"));
             apiInterface.setCategory(category);
         }
-        return interfaceRepository.save(apiInterface);
+        ApiInterface saved = interfaceRepository.save(apiInterface);
+        eventPublisher.publishEvent(new ApiInterfaceChangedEvent(saved.getId(), false));
+        return saved;
     }
 
     /**
@@ -93,7 +153,9 @@ public class ApiInterfaceService {
             apiInterface.setCategory(null);
         }
 
-        return interfaceRepository.save(apiInterface);
+        ApiInterface saved = interfaceRepository.save(apiInterface);
+        eventPublisher.publishEvent(new ApiInterfaceChangedEvent(id, false));
+        return saved;
     }
 
     /**
@@ -106,149 +168,598 @@ public class ApiInterfaceService {
         }
         // 先删除参数
         parameterRepository.deleteByApiInterfaceId(id);
+        schemaVersionRepository.deleteByInterfaceId(id);
         interfaceRepository.deleteById(id);
+        eventPublisher.publishEvent(new ApiInterfaceChangedEvent(id, true));
+    }
+
+    /**
+     * 按新顺序排列栏目下的接口（一个事务、批量更新）
+     * 使用稀疏排序号，只改写位置变了的接口
+     *
+     * @param categoryId 栏目ID，null 表示未分类接口
+     * @param orderedIds 栏目下全部接口的新顺序
+     * @return 改写排序号的接口数
+     */
+    @Transactional
+    public int reorder(Long categoryId, List<Long> orderedIds) {
+        Map<Long, Integer> current = sortOrderJdbcRepository.lockInterfaceOrders(categoryId);
+        if (orderedIds.size() != current.size() || !current.keySet().containsAll(orderedIds)) {
+            throw new BusinessException("排序列表与栏目下的接口不一致");
+        }
+        if (new HashSet<>(orderedIds).size() != orderedIds.size()) {
+            throw new BusinessException("排序列表中有重复的接口");
+        }
+
+        Map<Long, Integer> changes = SparseOrdering.reorder(orderedIds, current);
+        sortOrderJdbcRepository.batchUpdateSortOrders(SortOrderJdbcRepository.INTERFACES, changes);
+        if (!changes.isEmpty()) {
+            eventPublisher.publishEvent(SortOrderChangedEvent.interfacesReordered(changes));
+        }
+        return changes.size();
+    }
+
+    /**
+     * 将多个接口移到另一个栏目，按给定顺序排在该栏目末尾（一个事务、批量更新）
+     *
+     * @param categoryId 目标栏目ID，null 表示移出栏目
+     * @return 改写的接口数
+     */
+    @Transactional
+    public int moveToCategory(List<Long> interfaceIds, Long categoryId) {
+        if (categoryId != null && !categoryRepository.existsById(categoryId)) {
+            throw new BusinessException("栏目不存在");
+        }
+        Set<Long> moving = new LinkedHashSet<>(interfaceIds);
+        if (moving.size() != interfaceIds.size()) {
+            throw new BusinessException("列表中有重复的接口");
+        }
+        Map<Long, Long> categories = sortOrderJdbcRepository.lockInterfaceCategories(moving);
+        for (Long id : moving) {
+            if (!categories.containsKey(id)) {
+                throw new BusinessException("接口不存在: " + id);
+            }
+        }
+
+        // 目标栏目中原有的接口保持顺序，移入的接口追加到末尾
+        Map<Long, Integer> current = sortOrderJdbcRepository.lockInterfaceOrders(categoryId);
+        current.keySet().removeAll(moving);
+        List<Long> orderedIds = new ArrayList<>(current.keySet());
+        orderedIds.addAll(moving);
+
+        Map<Long, Integer> changes = SparseOrdering.reorder(orderedIds, current);
+        sortOrderJdbcRepository.batchMoveInterfaces(categoryId, changes);
+        if (!changes.isEmpty()) {
+            eventPublisher.publishEvent(SortOrderChangedEvent.interfacesMoved(categoryId, changes));
+        }
+        return changes.size();
     }
 
     /**
      * 获取接口的参数列表（树形结构）
+     * 一次查询取出全部参数后在内存中组装，序列化和生成示例时不会再逐个节点懒加载子参数
      */
     public List<ApiParameter> getParameters(Long interfaceId) {
-        return parameterRepository.findByApiInterfaceIdAndParentIsNullOrderBySortOrderAsc(interfaceId);
+        return buildParameterTree(parameterJdbcRepository.findByInterfaceId(interfaceId));
+    }
+
+    /**
+     * 由同一接口的参数行（按排序号排列）组装参数树
+     */
+    public List<ApiParameter> buildParameterTree(List<ParameterRow> rows) {
+        Map<Long, ApiParameter> byId = new HashMap<>(rows.size() * 2);
+        for (ParameterRow row : rows) {
+            ApiParameter param = new ApiParameter();
+            param.setId(row.getId());
+            param.setName(row.getName());
+            param.setType(row.getType());
+            param.setRequired(row.isRequired());
+            param.setDescription(row.getDescription());
+            param.setExampleValue(row.getExampleValue());
+            param.setSortOrder(row.getSortOrder());
+            param.setPath(row.getPath());
+            byId.put(row.getId(), param);
+        }
+
+        // 查询结果已按排序号排列，依次挂到父参数下即保持顺序
+        List<ApiParameter> roots = new ArrayList<>();
+        for (ParameterRow row : rows) {
+            ApiParameter param = byId.get(row.getId());
+            ApiParameter parent = row.getParentId() != null ? byId.get(row.getParentId()) : null;
+            if (parent != null) {
+                parent.getChildren().add(param);
+            } else {
+                roots.add(param);
+            }
+        }
+        return roots;
     }
 
     /**
      * 保存参数（支持批量保存树形结构）
+     * 与已保存的参数树比较，只对变化的节点执行插入/更新/删除，并以 JDBC 批量提交。
+     * 提交的节点带 id 时按 id 对应已有参数，否则按父参数和参数名对应。
+     * 参数树有变化时记录为新的结构版本
      */
     @Transactional
     public void saveParameters(Long interfaceId, List<Map<String, Object>> parametersData) {
-        ApiInterface apiInterface = findById(interfaceId);
+        lockInterface(interfaceId);
+
+        List<ParameterRow> existing = parameterJdbcRepository.findByInterfaceId(interfaceId);
+        Map<Long, ParameterRow> existingById = new HashMap<>();
+        Map<String, Deque<ParameterRow>> existingByName = new HashMap<>();
+        for (ParameterRow row : existing) {
+            existingById.put(row.getId(), row);
+            existingByName.computeIfAbsent(siblingKey(row.getParentId(), row.getName()), k -> new ArrayDeque<>())
+                    .add(row);
+        }
 
-        // 删除旧参数
-        parameterRepository.deleteByApiInterfaceId(interfaceId);
+        List<ParameterNode> nodes = new ArrayList<>();
+        collectParameters(interfaceId, parametersData, null, existingById, existingByName, nodes);
+
+        // 新参数按先序排列，父参数先分配 ID、先插入
+        long newCount = nodes.stream().filter(node -> node.original == null).count();
+        long nextId = newCount > 0 ? idAllocator.allocate(ApiParameterJdbcRepository.TABLE, (int) newCount) : 0;
+        List<ParameterRow> inserts = new ArrayList<>();
+        List<ParameterRow> updates = new ArrayList<>();
+        for (ParameterNode node : nodes) {
+            if (node.original == null) {
+                node.row.setId(nextId++);
+            }
+        }
+        for (ParameterNode node : nodes) {
+            node.row.setParentId(node.parent != null ? node.parent.row.getId() : null);
+            node.row.setPath(ApiParameterJdbcRepository.childPath(
+                    node.parent != null ? node.parent.row.getPath() : null, node.row.getId()));
+            if (node.row.getPath().length() > ApiParameterJdbcRepository.MAX_PATH_LENGTH) {
+                throw new BusinessException("参数层级过深: " + node.row.getName());
+            }
+            if (node.original == null) {
+                inserts.add(node.row);
+            } else if (!node.row.equals(node.original)) {
+                updates.add(node.row);
+            }
+        }
 
-        // 递归保存新参数
-        saveParametersRecursive(apiInterface, null, parametersData);
+        // 未对应上的旧参数按层级从深到浅删除，避免违反 parent_id 外键
+        Map<Long, ParameterRow> allById = new HashMap<>();
+        existing.forEach(row -> allById.put(row.getId(), row));
+        List<ParameterRow> deletes = new ArrayList<>(existingById.values());
+        deletes.sort(Comparator.comparingInt((ParameterRow row) -> depth(row, allById)).reversed());
+
+        parameterJdbcRepository.batchInsert(interfaceId, inserts);
+        parameterJdbcRepository.batchUpdate(updates);
+        parameterJdbcRepository.batchDelete(deletes.stream().map(ParameterRow::getId).toList());
+        schemaVersionService.record(interfaceId, existing, nodes.stream().map(node -> node.row).toList());
+        eventPublisher.publishEvent(new ApiInterfaceChangedEvent(interfaceId, false));
     }
 
-    private void saveParametersRecursive(ApiInterface apiInterface, ApiParameter parent,
-            List<Map<String, Object>> parametersData) {
+    /**
+     * 将参数恢复为某个结构版本（作为一次保存，记录为新版本）
+     */
+    @Transactional
+    public void restoreVersion(Long interfaceId, int version) {
+        findById(interfaceId);
+        List<ApiParameter> tree = schemaVersionService.getTree(interfaceId, version);
+        saveParameters(interfaceId, schemaVersionService.toParameterData(tree));
+    }
+
+    /**
+     * 获取参数子树（含该参数），按路径前缀查询，不逐层加载
+     */
+    public ApiParameter getParameterSubtree(Long interfaceId, Long parameterId) {
+        ParameterRow row = findParameterRow(interfaceId, parameterId);
+        if (row.getPath() == null) {
+            pathBackfillService.backfill(interfaceId);
+            row = findParameterRow(interfaceId, parameterId);
+        }
+        List<ApiParameter> roots = buildParameterTree(parameterJdbcRepository.findSubtree(interfaceId, row.getPath()));
+        for (ApiParameter root : roots) {
+            if (root.getId().equals(parameterId)) {
+                return root;
+            }
+        }
+        throw new BusinessException("参数不存在");
+    }
+
+    /**
+     * 将参数连同子参数移动到另一个父参数下
+     * 子参数的路径用一条语句按前缀替换，与子树大小和深度无关
+     *
+     * @param parentId 新的父参数ID，null 表示移到顶层
+     * @param index    在新父参数下的位置，null 或超出范围时放在最后
+     */
+    @Transactional
+    public void moveParameter(Long interfaceId, Long parameterId, Long parentId, Integer index) {
+        List<ParameterRow> previous = loadRowsWithPaths(interfaceId);
+        Map<Long, ParameterRow> byId = new HashMap<>(previous.size() * 2);
+        previous.forEach(row -> byId.put(row.getId(), row));
+
+        ParameterRow moved = byId.get(parameterId);
+        if (moved == null) {
+            throw new BusinessException("参数不存在");
+        }
+        ParameterRow parent = null;
+        if (parentId != null) {
+            parent = byId.get(parentId);
+            if (parent == null) {
+                throw new BusinessException("目标参数不存在");
+            }
+            if (parent.getPath().startsWith(moved.getPath())) {
+                throw new BusinessException("不能移动到自身或子参数下");
+            }
+        }
+
+        String oldPath = moved.getPath();
+        String newPath = ApiParameterJdbcRepository.childPath(parent != null ? parent.getPath() : null, parameterId);
+        List<ParameterRow> current = new ArrayList<>(previous.size());
+        List<ParameterRow> siblings = new ArrayList<>();
+        int maxPathLength = 0;
+        for (ParameterRow row : previous) {
+            ParameterRow copy = row.copy();
+            current.add(copy);
+            if (row.getPath().startsWith(oldPath)) {
+                maxPathLength = Math.max(maxPathLength, row.getPath().length());
+            } else if (Objects.equals(row.getParentId(), parentId)) {
+                siblings.add(copy);
+            }
+        }
+        if (maxPathLength - oldPath.length() + newPath.length() > ApiParameterJdbcRepository.MAX_PATH_LENGTH) {
+            throw new BusinessException("参数层级过深");
+        }
+
+        siblings.sort(Comparator.comparingInt(ParameterRow::getSortOrder).thenComparing(ParameterRow::getId));
+        int sortOrder;
+        if (index != null && index >= 0 && index < siblings.size()) {
+            sortOrder = siblings.get(index).getSortOrder();
+            parameterJdbcRepository.shiftSortOrders(interfaceId, parentId, sortOrder);
+            for (ParameterRow sibling : siblings) {
+                if (sibling.getSortOrder() >= sortOrder) {
+                    sibling.setSortOrder(sibling.getSortOrder() + 1);
+                }
+            }
+        } else {
+            sortOrder = siblings.isEmpty() ? 0 : siblings.get(siblings.size() - 1).getSortOrder() + 1;
+        }
+
+        parameterJdbcRepository.movePaths(interfaceId, oldPath, newPath);
+        parameterJdbcRepository.updateParent(parameterId, parentId, sortOrder);
+        for (ParameterRow row : current) {
+            if (row.getId().equals(parameterId)) {
+                row.setParentId(parentId);
+                row.setSortOrder(sortOrder);
+            }
+            if (row.getPath().startsWith(oldPath)) {
+                row.setPath(newPath + row.getPath().substring(oldPath.length()));
+            }
+        }
+        schemaVersionService.record(interfaceId, previous, current);
+        eventPublisher.publishEvent(new ApiInterfaceChangedEvent(interfaceId, false));
+    }
+
+    /**
+     * 删除参数连同全部子参数（按路径前缀删除）
+     */
+    @Transactional
+    public void deleteParameterSubtree(Long interfaceId, Long parameterId) {
+        List<ParameterRow> previous = loadRowsWithPaths(interfaceId);
+        ParameterRow deleted = previous.stream()
+                .filter(row -> row.getId().equals(parameterId))
+                .findFirst()
+                .orElseThrow(() -> new BusinessException("参数不存在"));
+
+        parameterJdbcRepository.deleteSubtree(interfaceId, deleted.getPath());
+        List<ParameterRow> current = previous.stream()
+                .filter(row -> !row.getPath().startsWith(deleted.getPath()))
+                .toList();
+        schemaVersionService.record(interfaceId, previous, current);
+        eventPublisher.publishEvent(new ApiInterfaceChangedEvent(interfaceId, false));
+    }
+
+    private ParameterRow findParameterRow(Long interfaceId, Long parameterId) {
+        ParameterRow row = parameterJdbcRepository.findById(interfaceId, parameterId);
+        if (row == null) {
+            throw new BusinessException("参数不存在");
+        }
+        return row;
+    }
+
+    /**
+     * 锁定接口行直到事务结束：并发修改同一接口的参数时依次读取、比较和记录版本
+     */
+    private void lockInterface(Long interfaceId) {
+        interfaceRepository.findByIdForUpdate(interfaceId)
+                .orElseThrow(() -> new BusinessException("接口不存在"));
+    }
+
+    /**
+     * 加载接口的全部参数（记录版本需要完整的参数树），有未回填路径的参数时先回填
+     */
+    private List<ParameterRow> loadRowsWithPaths(Long interfaceId) {
+        lockInterface(interfaceId);
+        List<ParameterRow> rows = parameterJdbcRepository.findByInterfaceId(interfaceId);
+        if (rows.stream().anyMatch(row -> row.getPath() == null)) {
+            pathBackfillService.backfill(interfaceId);
+            rows = parameterJdbcRepository.findByInterfaceId(interfaceId);
+            if (rows.stream().anyMatch(row -> row.getPath() == null)) {
+                throw new BusinessException("参数数据不完整，无法生成路径");
+            }
+        }
+        return rows;
+    }
+
+    private void collectParameters(Long interfaceId, List<Map<String, Object>> parametersData, ParameterNode parent,
+            Map<Long, ParameterRow> existingById, Map<String, Deque<ParameterRow>> existingByName,
+            List<ParameterNode> nodes) {
         if (parametersData == null)
             return;
 
         int sortOrder = 0;
         for (Map<String, Object> paramData : parametersData) {
-            ApiParameter param = new ApiParameter();
-            param.setApiInterface(apiInterface);
-            param.setParent(parent);
-            param.setName((String) paramData.get("name"));
-            param.setType((String) paramData.getOrDefault("type", "string"));
-            param.setRequired((Boolean) paramData.getOrDefault("required", false));
-            param.setDescription((String) paramData.get("description"));
-            param.setExampleValue((String) paramData.get("exampleValue"));
-            param.setSortOrder(sortOrder++);
-
-            parameterRepository.save(param);
-
-            // 递归保存子参数
+            ParameterRow row = new ParameterRow();
+            // 与已有参数行逐字段比较，接口ID也需一致
+            row.setInterfaceId(interfaceId);
+            row.setName((String) paramData.get("name"));
+            row.setType((String) paramData.getOrDefault("type", "string"));
+            row.setRequired(Boolean.TRUE.equals(paramData.get("required")));
+            row.setDescription((String) paramData.get("description"));
+            row.setExampleValue((String) paramData.get("exampleValue"));
+            row.setSortOrder(sortOrder++);
+            if (row.getType() == null) {
+                row.setType("string");
+            }
+
+            ParameterRow original = null;
+            Object id = paramData.get("id");
+            if (id instanceof Number && existingById.containsKey(((Number) id).longValue())) {
+                original = existingById.remove(((Number) id).longValue());
+                existingByName.get(siblingKey(original.getParentId(), original.getName())).remove(original);
+            } else if (parent == null || parent.original != null) {
+                // 父参数是已有参数时，才可能按名称对应到它原来的子参数
+                Long parentId = parent != null ? parent.original.getId() : null;
+                Deque<ParameterRow> candidates = existingByName.get(siblingKey(parentId, row.getName()));
+                if (candidates != null && !candidates.isEmpty()) {
+                    original = candidates.poll();
+                    existingById.remove(original.getId());
+                }
+            }
+            if (original != null) {
+                row.setId(original.getId());
+            }
+
+            ParameterNode node = new ParameterNode(row, parent, original);
+            nodes.add(node);
+
+            // 递归处理子参数
             @SuppressWarnings("unchecked")
             List<Map<String, Object>> children = (List<Map<String, Object>>) paramData.get("children");
             if (children != null && !children.isEmpty()) {
-                saveParametersRecursive(apiInterface, param, children);
+                collectParameters(interfaceId, children, node, existingById, existingByName, nodes);
             }
         }
     }
 
+    private String siblingKey(Long parentId, String name) {
+        return parentId + "/" + name;
+    }
+
+    private int depth(ParameterRow row, Map<Long, ParameterRow> rowsById) {
+        int depth = 0;
+        while (row.getParentId() != null && (row = rowsById.get(row.getParentId())) != null) {
+            depth++;
+        }
+        return depth;
+    }
+
     /**
-     * 生成JSON示例
+     * 获取JSON示例（含序列化好的返回体），定义未变更时直接使用缓存，不访问数据库
      */
-    public String generateJsonExample(Long interfaceId) {
-        List<ApiParameter> rootParams = getParameters(interfaceId);
-        Map<String, Object> jsonObject = buildJsonObject(rootParams);
+    public JsonExample getJsonExample(Long interfaceId) {
+        long version = versions.getOrDefault(interfaceId, 0L);
+        JsonExample cached = exampleCache.get(interfaceId);
+        if (cached != null && cached.getVersion() == version) {
+            return cached;
+        }
 
+        String json = generateJsonExample(interfaceId);
+        byte[] body;
         try {
-            return objectMapper.writeValueAsString(jsonObject);
-        } catch (JsonProcessingException e) {
+            body = responseMapper.writeValueAsBytes(Result.success(Map.of("json", json)));
+        } catch (IOException e) {
             throw new BusinessException("JSON生成失败: " + e.getMessage());
         }
+        JsonExample example = new JsonExample(version, json, body, "\"" + DigestUtils.md5DigestAsHex(body) + "\"");
+        // 并发生成时保留版本较新的结果
+        return exampleCache.merge(interfaceId, example,
+                (current, created) -> current.getVersion() >= created.getVersion() ? current : created);
     }
 
-    private Map<String, Object> buildJsonObject(List<ApiParameter> parameters) {
-        Map<String, Object> result = new LinkedHashMap<>();
+    /**
+     * 接口定义变更提交后使缓存失效（先读到版本号的请求生成的旧结果不会再被使用）
+     */
+    @TransactionalEventListener
+    public void onInterfaceChanged(ApiInterfaceChangedEvent event) {
+        versions.merge(event.getInterfaceId(), 1L, Long::sum);
+        exampleCache.remove(event.getInterfaceId());
+        validatorCache.remove(event.getInterfaceId());
+    }
+
+    /**
+     * 获取接口的参数校验器，定义未变更时直接使用已编译的结果
+     */
+    public ParameterValidator getValidator(Long interfaceId) {
+        long version = versions.getOrDefault(interfaceId, 0L);
+        CompiledValidator cached = validatorCache.get(interfaceId);
+        if (cached != null && cached.getVersion() == version) {
+            return cached.getValidator();
+        }
+
+        findById(interfaceId);
+        CompiledValidator compiled = new CompiledValidator(version,
+                ParameterValidator.compile(getParameters(interfaceId)));
+        return validatorCache.merge(interfaceId, compiled,
+                (current, created) -> current.getVersion() >= created.getVersion() ? current : created)
+                .getValidator();
+    }
+
+    /**
+     * 生成JSON示例
+     * 直接从参数树写出到 JsonGenerator，不构造中间的 Map
+     */
+    public String generateJsonExample(Long interfaceId) {
+        return generateJsonExample(getParameters(interfaceId));
+    }
+
+    /**
+     * 由参数树生成JSON示例
+     */
+    public String generateJsonExample(List<ApiParameter> rootParams) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (JsonGenerator generator = objectMapper.createGenerator(out)) {
+            writeJsonObject(generator, rootParams);
+        } catch (IOException e) {
+            throw new BusinessException("JSON生成失败: " + e.getMessage());
+        }
+        return out.toString(StandardCharsets.UTF_8);
+    }
 
+    private void writeJsonObject(JsonGenerator generator, List<ApiParameter> parameters) throws IOException {
+        // 同名参数保留第一次出现的位置、最后一次出现的定义
+        Map<String, ApiParameter> fields = new LinkedHashMap<>();
         for (ApiParameter param : parameters) {
-            Object value = buildParameterValue(param);
-            result.put(param.getName(), value);
+            fields.put(param.getName(), param);
         }
 
-        return result;
+        generator.writeStartObject();
+        for (Map.Entry<String, ApiParameter> field : fields.entrySet()) {
+            generator.writeFieldName(field.getKey());
+            writeParameterValue(generator, field.getValue());
+        }
+        generator.writeEndObject();
     }
 
-    private Object buildParameterValue(ApiParameter param) {
+    private void writeParameterValue(JsonGenerator generator, ApiParameter param) throws IOException {
         String type = param.getType();
         String exampleValue = param.getExampleValue();
         List<ApiParameter> children = param.getChildren();
 
         switch (type.toLowerCase()) {
             case "object":
-                if (children != null && !children.isEmpty()) {
-                    return buildJsonObject(children);
-                }
-                return new LinkedHashMap<>();
+                writeJsonObject(generator, children != null ? children : List.of());
+                break;
 
             case "array":
-                List<Object> arrayResult = new ArrayList<>();
+                generator.writeStartArray();
                 if (children != null && !children.isEmpty()) {
-                    // 数组元素结构
+                    // 数组元素结构，输出两个相同的示例元素
                     ApiParameter firstChild = children.get(0);
-                    if ("object".equalsIgnoreCase(firstChild.getType())) {
-                        arrayResult.add(buildJsonObject(firstChild.getChildren()));
-                    } else {
-                        arrayResult.add(buildPrimitiveValue(firstChild));
+                    for (int i = 0; i < 2; i++) {
+                        if ("object".equalsIgnoreCase(firstChild.getType())) {
+                            writeJsonObject(generator, firstChild.getChildren());
+                        } else {
+                            writePrimitiveValue(generator, firstChild);
+                        }
                     }
-                    // 添加第二个示例元素
-                    arrayResult.add(arrayResult.get(0));
                 }
-                return arrayResult;
+                generator.writeEndArray();
+                break;
 
             case "number":
                 if (exampleValue != null && !exampleValue.isEmpty()) {
                     try {
                         if (exampleValue.contains(".")) {
-                            return Double.parseDouble(exampleValue);
+                            generator.writeNumber(Double.parseDouble(exampleValue));
+                        } else {
+                            generator.writeNumber(Long.parseLong(exampleValue));
                         }
-                        return Long.parseLong(exampleValue);
                     } catch (NumberFormatException e) {
-                        return 0;
+                        generator.writeNumber(0);
                     }
+                } else {
+                    generator.writeNumber(12345);
                 }
-                return 12345;
+                break;
 
             case "boolean":
                 if (exampleValue != null && !exampleValue.isEmpty()) {
-                    return Boolean.parseBoolean(exampleValue);
+                    generator.writeBoolean(Boolean.parseBoolean(exampleValue));
+                } else {
+                    generator.writeBoolean(true);
                 }
-                return true;
+                break;
 
             case "string":
             default:
                 if (exampleValue != null && !exampleValue.isEmpty()) {
-                    return exampleValue;
+                    generator.writeString(exampleValue);
+                } else {
+                    generator.writeString("示例" + param.getName());
                 }
-                return "示例" + param.getName();
         }
     }
 
-    private Object buildPrimitiveValue(ApiParameter param) {
+    private void writePrimitiveValue(JsonGenerator generator, ApiParameter param) throws IOException {
         String type = param.getType();
         String exampleValue = param.getExampleValue();
 
         switch (type.toLowerCase()) {
             case "number":
-                return exampleValue != null ? Long.parseLong(exampleValue) : 123;
+                generator.writeNumber(exampleValue != null ? Long.parseLong(exampleValue) : 123);
+                break;
             case "boolean":
-                return exampleValue != null ? Boolean.parseBoolean(exampleValue) : true;
+                generator.writeBoolean(exampleValue != null ? Boolean.parseBoolean(exampleValue) : true);
+                break;
             default:
-                return exampleValue != null ? exampleValue : "示例值";
+                generator.writeString(exampleValue != null ? exampleValue : "示例值");
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static class CompiledValidator {
+
+        private final long version;
+        private final ParameterValidator validator;
+    }
+
+    /**
+     * JSON示例
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class JsonExample {
+
+        /**
+         * 生成时的定义版本号
+         */
+        private final long version;
+
+        /**
+         * 示例JSON（缩进格式）
+         */
+        private final String json;
+
+        /**
+         * 序列化好的返回体
+         */
+        private final byte[] body;
+
+        private final String etag;
+    }
+
+    /**
+     * 提交的参数节点：保存后的行、父节点、对应的已有参数（新参数为 null）
+     */
+    private static class ParameterNode {
+
+        private final ParameterRow row;
+        private final ParameterNode parent;
+        private final ParameterRow original;
+
+        ParameterNode(ParameterRow row, ParameterNode parent, ParameterRow original) {
+            this.row = row;
+            this.parent = parent;
+            this.original = original;
         }
     }
 }
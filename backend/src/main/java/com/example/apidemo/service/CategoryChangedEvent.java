@@ -0,0 +1,14 @@
+package com.example.apidemo.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 栏目变更事件（新增/修改/删除）
+ */
+@Getter
+@AllArgsConstructor
+public class CategoryChangedEvent {
+
+    private final Long categoryId;
+}
@@ -1,12 +1,18 @@
 package com.example.apidemo.service;
 
 import com.example.apidemo.common.BusinessException;
+import com.example.apidemo.common.SparseOrdering;
 import com.example.apidemo.entity.Category;
 import com.example.apidemo.repository.CategoryRepository;
+import com.example.apidemo.repository.SortOrderJdbcRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 
 /**
  * 栏目服务
@@ -17,6 +23,12 @@ public class CategoryService {
     @Autowired
     private CategoryRepository categoryRepository;
 
+    @Autowired
+    private SortOrderJdbcRepository sortOrderJdbcRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     /**
      * 获取所有栏目（按排序）
      */
@@ -36,7 +48,9 @@ public class CategoryService {
      * 创建栏目
      */
     public Category create(Category category) {
-        return categoryRepository.save(category);
+        Category saved = categoryRepository.save(category);
+        eventPublisher.publishEvent(new CategoryChangedEvent(saved.getId()));
+        return saved;
     }
 
     /**
@@ -47,7 +61,9 @@ public class CategoryService {
         category.setName(categoryData.getName());
         category.setDescription(categoryData.getDescription());
         category.setSortOrder(categoryData.getSortOrder());
-        return categoryRepository.save(category);
+        Category saved = categoryRepository.save(category);
+        eventPublisher.publishEvent(new CategoryChangedEvent(id));
+        return saved;
     }
 
     /**
@@ -58,5 +74,30 @@ public class CategoryService {
             throw new BusinessException("栏目不存在");
         }
         categoryRepository.deleteById(id);
+        eventPublisher.publishEvent(new CategoryChangedEvent(id));
+    }
+
+    /**
+     * 按新顺序排列全部栏目（一个事务、批量更新）
+     * 使用稀疏排序号，只改写位置变了的栏目
+     *
+     * @return 改写排序号的栏目数
+     */
+    @Transactional
+    public int reorder(List<Long> orderedIds) {
+        Map<Long, Integer> current = sortOrderJdbcRepository.lockCategoryOrders();
+        if (orderedIds.size() != current.size() || !current.keySet().containsAll(orderedIds)) {
+            throw new BusinessException("排序列表与现有栏目不一致");
+        }
+        if (new HashSet<>(orderedIds).size() != orderedIds.size()) {
+            throw new BusinessException("排序列表中有重复的栏目");
+        }
+
+        Map<Long, Integer> changes = SparseOrdering.reorder(orderedIds, current);
+        sortOrderJdbcRepository.batchUpdateSortOrders(SortOrderJdbcRepository.CATEGORIES, changes);
+        if (!changes.isEmpty()) {
+            eventPublisher.publishEvent(SortOrderChangedEvent.categoriesReordered(changes));
+        }
+        return changes.size();
     }
 }
@@ -0,0 +1,388 @@
+package com.example.apidemo.service;
+
+import com.example.apidemo.common.BusinessException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 分片上传服务（断点续传）
+ * 分片按偏移量直接写入临时文件，可并行上传，每个分片单独校验 SHA-256。
+ * 每个会话占用一个打开的文件句柄和一个临时文件，因此限制全局和每个用户的会话数，
+ * 声明的大小加上进行中会话的大小不能超过临时目录的可用空间；过期会话定时清理，
+ * 启动时删除上次运行遗留的 .part 文件
+ */
+@Service
+public class ChunkedUploadService {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    /**
+     * 分片大小
+     */
+    @Value("${file.chunked.chunk-size:8388608}")
+    private long chunkSize;
+
+    /**
+     * 单个文件最大大小
+     */
+    @Value("${file.chunked.max-file-size:10737418240}")
+    private long maxFileSize;
+
+    /**
+     * 会话过期时间（毫秒）
+     */
+    @Value("${file.chunked.session-ttl:86400000}")
+    private long sessionTtl;
+
+    /**
+     * 同时存在的会话数上限
+     */
+    @Value("${file.chunked.max-sessions:1000}")
+    private int maxSessions;
+
+    /**
+     * 每个用户同时存在的会话数上限
+     */
+    @Value("${file.chunked.max-sessions-per-user:10}")
+    private int maxSessionsPerUser;
+
+    /**
+     * 过期会话清理间隔（毫秒）
+     */
+    @Value("${file.chunked.sweep-interval:60000}")
+    private long sweepInterval;
+
+    private final Map<String, UploadSession> sessions = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService sweeper;
+
+    @PostConstruct
+    public void init() {
+        removeStaleParts();
+        sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "chunked-upload-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = Math.max(1000, sweepInterval);
+        sweeper.scheduleWithFixedDelay(this::removeExpiredSessions, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 创建上传会话
+     *
+     * @param owner            创建会话的用户名
+     * @param originalFilename 原始文件名
+     * @param fileSize         文件总大小
+     */
+    public Map<String, Object> init(String owner, String originalFilename, long fileSize) {
+        if (fileSize <= 0 || fileSize > maxFileSize) {
+            throw new BusinessException("文件大小不合法");
+        }
+
+        String uploadId = UUID.randomUUID().toString().replace("-", "");
+        Path tempFile = fileStorageService.getTempPath().resolve(uploadId + ".part");
+        int totalChunks = (int) ((fileSize + chunkSize - 1) / chunkSize);
+
+        // 检查和登记在同一把锁内，并发创建不会越过上限
+        synchronized (sessions) {
+            if (sessions.size() >= maxSessions) {
+                removeExpiredSessions();
+            }
+            if (sessions.size() >= maxSessions) {
+                throw new BusinessException("上传会话过多，请稍后重试");
+            }
+            long owned = 0;
+            long reserved = 0;
+            for (UploadSession session : sessions.values()) {
+                if (session.owner.equals(owner)) {
+                    owned++;
+                }
+                reserved += session.fileSize;
+            }
+            if (owned >= maxSessionsPerUser) {
+                throw new BusinessException("未完成的上传过多，请先完成或取消之前的上传");
+            }
+            try {
+                // 临时文件按实际写入增长，预留进行中会话尚未写入的部分
+                if (reserved + fileSize > Files.getFileStore(fileStorageService.getTempPath()).getUsableSpace()) {
+                    throw new BusinessException("存储空间不足");
+                }
+                FileChannel channel = FileChannel.open(tempFile,
+                        StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+                sessions.put(uploadId, new UploadSession(uploadId, owner, originalFilename, fileSize,
+                        totalChunks, tempFile, channel));
+            } catch (IOException e) {
+                throw new BusinessException("创建上传会话失败: " + e.getMessage());
+            }
+        }
+        return status(owner, uploadId);
+    }
+
+    /**
+     * 写入分片
+     *
+     * @param offset   分片起始偏移量，必须是分片大小的整数倍
+     * @param length   分片长度（Content-Length）
+     * @param checksum 客户端提供的 SHA-256（十六进制），可为空
+     * @return 服务端计算的 SHA-256
+     */
+    public String writeChunk(String owner, String uploadId, long offset, long length, String checksum,
+            InputStream in) {
+        UploadSession session = getSession(owner, uploadId);
+        if (offset < 0 || offset % chunkSize != 0 || offset >= session.fileSize) {
+            throw new BusinessException("分片偏移量不合法");
+        }
+        int index = (int) (offset / chunkSize);
+        long expectedLength = Math.min(chunkSize, session.fileSize - offset);
+        if (length >= 0 && length != expectedLength) {
+            throw new BusinessException("分片长度不合法，应为 " + expectedLength);
+        }
+
+        // 占用该分片：已确认的分片允许重传（上次的响应可能丢失），写入前先清除确认位，
+        // 写入失败或校验不通过时保持未确认，commit 不会把写坏的文件移入存储；同一分片不能并发写入
+        if (!session.beginWrite(index)) {
+            throw new BusinessException("该分片正在上传");
+        }
+        boolean verified = false;
+        try {
+            String actual = writeAndDigest(session, offset, expectedLength, in);
+            if (checksum != null && !checksum.isBlank() && !checksum.equalsIgnoreCase(actual)) {
+                throw new BusinessException("分片校验失败");
+            }
+            verified = true;
+            return actual;
+        } finally {
+            session.finishWrite(index, verified);
+        }
+    }
+
+    /**
+     * 把分片写到偏移量处，同时计算 SHA-256
+     */
+    private String writeAndDigest(UploadSession session, long offset, long expectedLength, InputStream in) {
+        MessageDigest digest = sha256();
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        long position = offset;
+        long remaining = expectedLength;
+        try {
+            while (remaining > 0) {
+                int read = in.read(buffer.array(), 0, (int) Math.min(BUFFER_SIZE, remaining));
+                if (read < 0) {
+                    break;
+                }
+                digest.update(buffer.array(), 0, read);
+                buffer.limit(read).position(0);
+                while (buffer.hasRemaining()) {
+                    position += session.channel.write(buffer, position);
+                }
+                buffer.clear();
+                remaining -= read;
+            }
+            if (remaining > 0 || in.read() >= 0) {
+                throw new BusinessException("分片长度不合法，应为 " + expectedLength);
+            }
+        } catch (IOException e) {
+            throw new BusinessException("分片写入失败: " + e.getMessage());
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * 查询上传进度
+     */
+    public Map<String, Object> status(String owner, String uploadId) {
+        UploadSession session = getSession(owner, uploadId);
+        Map<String, Object> data = new HashMap<>();
+        synchronized (session) {
+            data.put("uploadId", session.uploadId);
+            data.put("filename", session.originalFilename);
+            data.put("fileSize", session.fileSize);
+            data.put("chunkSize", chunkSize);
+            data.put("totalChunks", session.totalChunks);
+            data.put("receivedChunks", session.received.cardinality());
+            data.put("missingChunks", session.missingChunks());
+        }
+        return data;
+    }
+
+    /**
+     * 完成上传，所有分片到齐后移入上传目录
+     *
+     * @return 文件名
+     */
+    public String commit(String owner, String uploadId) {
+        UploadSession session = getSession(owner, uploadId);
+        synchronized (session) {
+            if (session.received.cardinality() != session.totalChunks) {
+                throw new BusinessException("分片未上传完整");
+            }
+            sessions.remove(uploadId);
+            try {
+                session.channel.force(false);
+                session.channel.close();
+            } catch (IOException e) {
+                throw new BusinessException("文件保存失败: " + e.getMessage());
+            }
+        }
+        return fileStorageService.storeTempFile(session.tempFile, session.originalFilename);
+    }
+
+    /**
+     * 取消上传
+     */
+    public void abort(String owner, String uploadId) {
+        UploadSession session = getSession(owner, uploadId);
+        if (sessions.remove(uploadId, session)) {
+            discard(session);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sweeper.shutdownNow();
+        sessions.values().forEach(session -> {
+            try {
+                session.channel.close();
+            } catch (IOException e) {
+                // 忽略
+            }
+        });
+    }
+
+    private UploadSession getSession(String owner, String uploadId) {
+        UploadSession session = sessions.get(uploadId);
+        if (session == null || !session.owner.equals(owner)) {
+            throw new BusinessException("上传会话不存在或已过期");
+        }
+        session.lastAccess = System.currentTimeMillis();
+        return session;
+    }
+
+    private void removeExpiredSessions() {
+        long deadline = System.currentTimeMillis() - sessionTtl;
+        sessions.values().removeIf(session -> {
+            if (session.lastAccess < deadline) {
+                discard(session);
+                return true;
+            }
+            return false;
+        });
+    }
+
+    /**
+     * 删除上次运行遗留的分片临时文件（会话只保存在内存中，重启后无法续传）
+     */
+    private void removeStaleParts() {
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(fileStorageService.getTempPath(), "*.part")) {
+            for (Path part : stream) {
+                Files.deleteIfExists(part);
+            }
+        } catch (IOException e) {
+            // 清理失败不影响启动
+        }
+    }
+
+    private void discard(UploadSession session) {
+        try {
+            session.channel.close();
+            Files.deleteIfExists(session.tempFile);
+        } catch (IOException e) {
+            // 临时文件删除失败不影响主流程
+        }
+    }
+
+    private MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 上传会话
+     */
+    private static class UploadSession {
+
+        private final String uploadId;
+        private final String owner;
+        private final String originalFilename;
+        private final long fileSize;
+        private final int totalChunks;
+        private final Path tempFile;
+        private final FileChannel channel;
+        private final BitSet received;
+
+        /**
+         * 正在写入的分片
+         */
+        private final BitSet writing;
+        private volatile long lastAccess = System.currentTimeMillis();
+
+        UploadSession(String uploadId, String owner, String originalFilename, long fileSize, int totalChunks,
+                Path tempFile, FileChannel channel) {
+            this.uploadId = uploadId;
+            this.owner = owner;
+            this.originalFilename = originalFilename;
+            this.fileSize = fileSize;
+            this.totalChunks = totalChunks;
+            this.tempFile = tempFile;
+            this.channel = channel;
+            this.received = new BitSet(totalChunks);
+            this.writing = new BitSet(totalChunks);
+        }
+
+        /**
+         * 开始写入分片：清除确认位；分片正在被其他请求写入时返回 false
+         */
+        synchronized boolean beginWrite(int index) {
+            if (writing.get(index)) {
+                return false;
+            }
+            writing.set(index);
+            received.clear(index);
+            return true;
+        }
+
+        /**
+         * 结束写入，只有长度和校验都通过时才确认
+         */
+        synchronized void finishWrite(int index, boolean verified) {
+            writing.clear(index);
+            if (verified) {
+                received.set(index);
+            }
+        }
+
+        List<Integer> missingChunks() {
+            List<Integer> missing = new ArrayList<>();
+            for (int i = received.nextClearBit(0); i < totalChunks; i = received.nextClearBit(i + 1)) {
+                missing.add(i);
+            }
+            return missing;
+        }
+    }
+}
@@ -0,0 +1,274 @@
+package com.example.apidemo.service;
+
+import com.example.apidemo.service.FileStorageService.FileMetadata;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.stereotype.Service;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 文件下载服务
+ * 支持 Range / If-Range 断点续传与多段请求，完整文件和单段内容优先交给容器 sendfile 零拷贝传输
+ * 支持 ETag / Last-Modified 条件请求，文件元数据缓存命中时 304 不访问磁盘
+ */
+@Service
+public class FileDownloadService {
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    /**
+     * 小于该大小的内容直接写出，sendfile 的额外开销不划算
+     */
+    private static final long SENDFILE_MIN_SIZE = 48 * 1024;
+
+    /**
+     * 浏览器/CDN 缓存时间：一年（文件名唯一且内容不会被改写）
+     */
+    public static final String CACHE_CONTROL = "public, max-age=31536000, immutable";
+
+    /**
+     * 临时内容（如缩略图未生成时返回的原图）只短暂缓存
+     */
+    public static final String CACHE_CONTROL_SHORT = "public, max-age=60";
+
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    @Autowired
+    private HotFileCache hotFileCache;
+
+    /**
+     * 输出文件（自动处理条件请求与 Range 请求）
+     *
+     * @param filename    文件名
+     * @param contentType 文件类型
+     */
+    public void serve(String filename, String contentType,
+            HttpServletRequest request, HttpServletResponse response) throws IOException {
+        serve(fileStorageService.getFileMetadata(filename), filename, contentType, CACHE_CONTROL, request, response);
+    }
+
+    /**
+     * 输出指定文件内容（缩略图等派生文件）
+     *
+     * @param metadata     文件元数据，为 null 时返回 404
+     * @param filename     对外文件名
+     * @param contentType  文件类型
+     * @param cacheControl Cache-Control 响应头
+     */
+    public void serve(FileMetadata metadata, String filename, String contentType, String cacheControl,
+            HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (metadata == null) {
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl);
+        // 命中 If-None-Match / If-Modified-Since 时直接返回 304，不打开文件
+        ServletWebRequest webRequest = new ServletWebRequest(request, response);
+        if (webRequest.checkNotModified(metadata.getEtag(), metadata.getLastModified())) {
+            return;
+        }
+
+        Path filePath = metadata.getPath();
+        long length = metadata.getLength();
+
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "inline; filename=\"" + filename + "\"");
+
+        List<HttpRange> ranges;
+        try {
+            ranges = resolveRanges(request, length, metadata);
+        } catch (IllegalArgumentException e) {
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+            response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+            return;
+        }
+
+        boolean headOnly = "HEAD".equalsIgnoreCase(request.getMethod());
+
+        if (ranges.isEmpty()) {
+            response.setStatus(HttpServletResponse.SC_OK);
+            response.setContentType(contentType);
+            response.setContentLengthLong(length);
+            if (!headOnly) {
+                // 小文件优先从堆外缓存输出
+                ByteBuffer cached = hotFileCache.get(filePath, length);
+                if (cached != null) {
+                    writeBuffer(cached, response);
+                } else {
+                    writeSingle(filePath, 0, length, request, response);
+                }
+            }
+            return;
+        }
+
+        response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+
+        if (ranges.size() == 1) {
+            HttpRange range = ranges.get(0);
+            long start = range.getRangeStart(length);
+            long end = range.getRangeEnd(length);
+            response.setContentType(contentType);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+            response.setContentLengthLong(end - start + 1);
+            if (!headOnly) {
+                writeSingle(filePath, start, end - start + 1, request, response);
+            }
+            return;
+        }
+
+        writeMultipart(filePath, contentType, length, ranges, headOnly, response);
+    }
+
+    /**
+     * 解析 Range 请求头，返回空列表表示输出完整文件
+     * 格式错误或不是 bytes 单位的 Range 按 RFC 9110 §14.2 忽略，返回完整文件
+     *
+     * @throws IllegalArgumentException Range 格式正确但无法满足
+     */
+    private List<HttpRange> resolveRanges(HttpServletRequest request, long length, FileMetadata metadata) {
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (rangeHeader == null || !ifRangeMatches(request, metadata)) {
+            return Collections.emptyList();
+        }
+
+        List<HttpRange> ranges;
+        try {
+            ranges = HttpRange.parseRanges(rangeHeader);
+        } catch (IllegalArgumentException e) {
+            return Collections.emptyList();
+        }
+        long total = 0;
+        for (HttpRange range : ranges) {
+            long start = range.getRangeStart(length);
+            long end = range.getRangeEnd(length);
+            if (start >= length || start > end) {
+                throw new IllegalArgumentException("Range 超出文件范围");
+            }
+            total += end - start + 1;
+        }
+        // 多段总长度超过文件本身时视为恶意请求
+        if (ranges.size() > 1 && total > length) {
+            throw new IllegalArgumentException("Range 总长度超出文件大小");
+        }
+        return ranges;
+    }
+
+    /**
+     * If-Range 校验，不匹配时忽略 Range 返回完整文件
+     */
+    private boolean ifRangeMatches(HttpServletRequest request, FileMetadata metadata) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            // If-Range 要求强比较，弱 ETag 一律不匹配
+            return ifRange.equals(metadata.getEtag());
+        }
+        try {
+            long since = request.getDateHeader(HttpHeaders.IF_RANGE);
+            return metadata.getLastModified() / 1000 == since / 1000;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private void writeSingle(Path filePath, long position, long count,
+            HttpServletRequest request, HttpServletResponse response) throws IOException {
+        // Tomcat NIO 连接器支持 sendfile 时交给容器做零拷贝传输
+        if (count >= SENDFILE_MIN_SIZE && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, filePath.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, position);
+            request.setAttribute(SENDFILE_END, position + count);
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(filePath, StandardOpenOption.READ)) {
+            OutputStream out = response.getOutputStream();
+            transfer(channel, position, count, Channels.newChannel(out));
+            out.flush();
+        }
+    }
+
+    private void writeBuffer(ByteBuffer buffer, HttpServletResponse response) throws IOException {
+        OutputStream out = response.getOutputStream();
+        WritableByteChannel target = Channels.newChannel(out);
+        while (buffer.hasRemaining()) {
+            target.write(buffer);
+        }
+        out.flush();
+    }
+
+    private void writeMultipart(Path filePath, String contentType, long length, List<HttpRange> ranges,
+            boolean headOnly, HttpServletResponse response) throws IOException {
+        String boundary = MimeTypeUtils.generateMultipartBoundaryString();
+        byte[][] partHeaders = new byte[ranges.size()][];
+        byte[] closing = ("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII);
+
+        long contentLength = closing.length;
+        for (int i = 0; i < ranges.size(); i++) {
+            long start = ranges.get(i).getRangeStart(length);
+            long end = ranges.get(i).getRangeEnd(length);
+            partHeaders[i] = ("\r\n--" + boundary + "\r\n"
+                    + HttpHeaders.CONTENT_TYPE + ": " + contentType + "\r\n"
+                    + HttpHeaders.CONTENT_RANGE + ": bytes " + start + "-" + end + "/" + length + "\r\n\r\n")
+                    .getBytes(StandardCharsets.US_ASCII);
+            contentLength += partHeaders[i].length + (end - start + 1);
+        }
+
+        response.setContentType("multipart/byteranges; boundary=" + boundary);
+        response.setContentLengthLong(contentLength);
+        if (headOnly) {
+            return;
+        }
+
+        // sendfile 只能传输一段连续内容，多段响应经 Channels.newChannel 分块复制到响应流，不是零拷贝；
+        // 多段总长度已限制为不超过文件大小
+        try (FileChannel channel = FileChannel.open(filePath, StandardOpenOption.READ)) {
+            OutputStream out = response.getOutputStream();
+            WritableByteChannel target = Channels.newChannel(out);
+            for (int i = 0; i < ranges.size(); i++) {
+                long start = ranges.get(i).getRangeStart(length);
+                long end = ranges.get(i).getRangeEnd(length);
+                out.write(partHeaders[i]);
+                transfer(channel, start, end - start + 1, target);
+            }
+            out.write(closing);
+            out.flush();
+        }
+    }
+
+    private void transfer(FileChannel channel, long position, long count, WritableByteChannel target)
+            throws IOException {
+        while (count > 0) {
+            long written = channel.transferTo(position, count, target);
+            if (written <= 0) {
+                break;
+            }
+            position += written;
+            count -= written;
+        }
+    }
+}
@@ -1,35 +1,143 @@
 package com.example.apidemo.service;
 
 import com.example.apidemo.common.BusinessException;
+import com.example.apidemo.common.SegmentedLruCache;
+import com.example.apidemo.entity.FileAlias;
+import com.example.apidemo.entity.FileBlob;
+import com.example.apidemo.repository.FileAliasRepository;
+import com.example.apidemo.repository.FileBlobRepository;
+import com.example.apidemo.service.storage.StorageBackend;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
 
 import jakarta.annotation.PostConstruct;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
-import java.util.UUID;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
 
 /**
  * 文件存储服务
+ * 开启去重后按内容 SHA-256 存储（.blobs 目录），对外文件名通过别名表映射到内容
  */
 @Service
 public class FileStorageService {
 
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final int ALIAS_CACHE_SIZE = 10000;
+
+    private static final int METADATA_CACHE_SIZE = 100000;
+
+    /**
+     * 别名/元数据缓存的分段数，每次下载都会读缓存，分段加锁避免争用同一把锁
+     */
+    private static final int CACHE_SEGMENTS = 16;
+
+    private static final String[] FILE_URL_PREFIXES = { "/api/files/", "/uploads/" };
+
     @Value("${file.upload-dir}")
     private String uploadDir;
 
+    /**
+     * 是否开启内容去重存储
+     */
+    @Value("${file.dedup-enabled:false}")
+    private boolean dedupEnabled;
+
+    @Autowired
+    private FileBlobRepository blobRepository;
+
+    @Autowired
+    private FileAliasRepository aliasRepository;
+
+    @Autowired
+    @Lazy
+    private ThumbnailService thumbnailService;
+
+    @Autowired
+    private StorageBackend storageBackend;
+
+    @Autowired
+    private HotFileCache hotFileCache;
+
+    @Autowired
+    private Mp4FastStartService fastStartService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+
     private Path uploadPath;
 
+    /**
+     * 临时目录（分片上传等未完成的文件），与上传目录同盘以便原子移动
+     */
+    private Path tempPath;
+
+    /**
+     * 内容存储目录
+     */
+    private Path blobPath;
+
+    /**
+     * 同一摘要的存储/删除需串行，按摘要分段加锁
+     */
+    private final Object[] blobLocks = new Object[256];
+
+    /**
+     * 别名 -> 内容路径缓存（别名创建后不会改变）
+     */
+    private final SegmentedLruCache<String, Path> aliasCache =
+            new SegmentedLruCache<>(ALIAS_CACHE_SIZE, CACHE_SEGMENTS);
+
+    /**
+     * 文件名 -> 文件元数据缓存（文件名唯一且内容不会被改写，删除时失效）
+     */
+    private final SegmentedLruCache<String, FileMetadata> metadataCache =
+            new SegmentedLruCache<>(METADATA_CACHE_SIZE, CACHE_SEGMENTS);
+
+    public FileStorageService() {
+        for (int i = 0; i < blobLocks.length; i++) {
+            blobLocks[i] = new Object();
+        }
+    }
+
     @PostConstruct
     public void init() {
         uploadPath = Paths.get(uploadDir).toAbsolutePath().normalize();
+        tempPath = uploadPath.resolve(".tmp");
+        blobPath = uploadPath.resolve(".blobs");
+        // 内容记录在独立事务中提交，提交后才移动或删除内容文件，不受调用方事务影响
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
         try {
             Files.createDirectories(uploadPath);
+            Files.createDirectories(tempPath);
+            Files.createDirectories(blobPath);
+            for (Path root : storageBackend.getRoots()) {
+                Files.createDirectories(root);
+            }
         } catch (IOException e) {
             throw new RuntimeException("无法创建上传目录", e);
         }
@@ -37,51 +145,486 @@ public class FileStorageService {
 
     /**
      * 保存文件
-     * 
+     *
      * @param file 上传的文件
      * @return 文件名
      */
     public String storeFile(MultipartFile file) {
-        String originalFilename = StringUtils.cleanPath(file.getOriginalFilename());
+        String newFilename = generateFilename(file.getOriginalFilename());
 
-        // 生成唯一文件名
-        String fileExtension = "";
-        if (originalFilename.contains(".")) {
-            fileExtension = originalFilename.substring(originalFilename.lastIndexOf("."));
+        try {
+            if (dedupEnabled && fastStartService.supports(newFilename)) {
+                // 需要 moov 前置的视频先落到临时文件处理，按处理后的内容去重
+                Path temp = Files.createTempFile(tempPath, "upload-", ".tmp");
+                try {
+                    file.transferTo(temp);
+                    storeTempBlob(temp, newFilename);
+                } finally {
+                    deleteQuietly(temp);
+                }
+            } else if (dedupEnabled) {
+                // 先只读计算摘要，内容已存在时无需再写盘
+                String digest;
+                try (InputStream in = file.getInputStream()) {
+                    digest = digest(in);
+                }
+                storeBlob(digest, file.getSize(), newFilename, file::transferTo);
+            } else {
+                Path targetLocation = prepareTarget(newFilename);
+                Files.copy(file.getInputStream(), targetLocation, StandardCopyOption.REPLACE_EXISTING);
+            }
+
+            postProcess(newFilename);
+            return newFilename;
+        } catch (IOException e) {
+            throw new BusinessException("文件保存失败: " + e.getMessage());
         }
-        String newFilename = UUID.randomUUID().toString() + fileExtension;
+    }
 
+    /**
+     * 保存已写入临时目录的文件（移动而非复制）
+     *
+     * @param source           临时文件
+     * @param originalFilename 原始文件名
+     * @return 文件名
+     */
+    public String storeTempFile(Path source, String originalFilename) {
+        String newFilename = generateFilename(originalFilename);
         try {
-            // 检查文件名是否包含无效字符
-            if (newFilename.contains("..")) {
-                throw new BusinessException("文件名包含无效字符");
+            if (dedupEnabled) {
+                storeTempBlob(source, newFilename);
+            } else {
+                moveFile(source, prepareTarget(newFilename));
             }
 
-            Path targetLocation = uploadPath.resolve(newFilename);
-            Files.copy(file.getInputStream(), targetLocation, StandardCopyOption.REPLACE_EXISTING);
-
+            postProcess(newFilename);
             return newFilename;
         } catch (IOException e) {
             throw new BusinessException("文件保存失败: " + e.getMessage());
         }
     }
 
+    /**
+     * 保存上传流：边读边写入最终位置，同时计算大小与 SHA-256，不产生临时文件
+     * 开启去重时先写入临时目录，摘要确定后移动（内容已存在则直接丢弃）
+     *
+     * @param in               文件内容
+     * @param originalFilename 原始文件名
+     * @param maxSize          最大允许字节数
+     */
+    public StoredFile storeStream(InputStream in, String originalFilename, long maxSize) {
+        String newFilename = generateFilename(originalFilename);
+        Path target = null;
+        try {
+            target = dedupEnabled
+                    ? Files.createTempFile(tempPath, "stream-", ".tmp")
+                    : prepareTarget(newFilename);
+
+            MessageDigest md = sha256();
+            long size = 0;
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            try (FileChannel channel = FileChannel.open(target, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                int read;
+                while ((read = in.read(buffer.array())) != -1) {
+                    size += read;
+                    if (size > maxSize) {
+                        throw new BusinessException("文件大小超出限制");
+                    }
+                    md.update(buffer.array(), 0, read);
+                    buffer.limit(read).position(0);
+                    while (buffer.hasRemaining()) {
+                        channel.write(buffer);
+                    }
+                    buffer.clear();
+                }
+            }
+            String digest = HexFormat.of().formatHex(md.digest());
+
+            if (dedupEnabled) {
+                Path source = target;
+                if (fastStartService.process(newFilename, source)) {
+                    try (InputStream stored = Files.newInputStream(source)) {
+                        digest = digest(stored);
+                    }
+                    size = Files.size(source);
+                }
+                storeBlob(digest, size, newFilename,
+                        blob -> Files.move(source, blob, StandardCopyOption.ATOMIC_MOVE));
+                Files.deleteIfExists(source);
+            }
+
+            postProcess(newFilename);
+            return new StoredFile(newFilename, size, digest);
+        } catch (IOException | RuntimeException e) {
+            deleteQuietly(target);
+            if (e instanceof BusinessException) {
+                throw (BusinessException) e;
+            }
+            throw new BusinessException("文件保存失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 文件写入后的处理：视频 moov 前置、图片缩略图
+     * moov 前置在文件名返回之前同步完成，外部不会读到改写中的文件。
+     * 开启去重时 moov 前置已在写入内容存储之前对临时文件完成（见 storeTempBlob），
+     * 这里不能再改写：内容文件由多个别名共用，且路径即内容摘要
+     */
+    private void postProcess(String filename) {
+        if (!dedupEnabled && fastStartService.supports(filename)) {
+            Path path = getFilePath(filename);
+            if (fastStartService.process(filename, path)) {
+                evictMetadata(filename);
+                hotFileCache.invalidate(path);
+            }
+        }
+        thumbnailService.submit(filename);
+    }
+
+    /**
+     * 获取上传根目录
+     */
+    public Path getUploadPath() {
+        return uploadPath;
+    }
+
+    /**
+     * 获取临时目录
+     */
+    public Path getTempPath() {
+        return tempPath;
+    }
+
+    /**
+     * 生成唯一文件名（保留扩展名）
+     */
+    private String generateFilename(String originalFilename) {
+        String cleanFilename = StringUtils.cleanPath(originalFilename != null ? originalFilename : "");
+
+        String fileExtension = "";
+        if (cleanFilename.contains(".")) {
+            fileExtension = cleanFilename.substring(cleanFilename.lastIndexOf("."));
+        }
+        String newFilename = UUID.randomUUID().toString() + fileExtension;
+
+        // 检查文件名是否包含无效字符
+        if (newFilename.contains("..")) {
+            throw new BusinessException("文件名包含无效字符");
+        }
+        return newFilename;
+    }
+
     /**
      * 获取文件路径
      */
     public Path getFilePath(String filename) {
-        return uploadPath.resolve(filename).normalize();
+        Path cached = aliasCache.get(filename);
+        if (cached != null) {
+            return cached;
+        }
+
+        Path filePath = storageBackend.locate(filename);
+        if (Files.exists(filePath)) {
+            return filePath;
+        }
+
+        // 切换存储方式后尚未迁移的文件仍在上传目录下平铺存放
+        Path legacyPath = uploadPath.resolve(filename).normalize();
+        if (!legacyPath.equals(filePath) && Files.exists(legacyPath)) {
+            return legacyPath;
+        }
+
+        // 去重存储的文件通过别名映射到内容
+        return aliasRepository.findById(filename)
+                .map(alias -> {
+                    Path path = resolveBlob(alias.getDigest());
+                    aliasCache.put(filename, path);
+                    return path;
+                })
+                .orElse(filePath);
+    }
+
+    /**
+     * 从文件地址（/api/files/{filename}、/uploads/{filename}）中取出文件名
+     *
+     * @return 不是本服务的文件地址时返回 null
+     */
+    public String extractFilename(String url) {
+        if (!StringUtils.hasText(url)) {
+            return null;
+        }
+        String path = url.split("[?#]", 2)[0];
+        for (String prefix : FILE_URL_PREFIXES) {
+            int index = path.lastIndexOf(prefix);
+            if (index >= 0) {
+                String filename = path.substring(index + prefix.length());
+                return filename.isEmpty() || filename.contains("/") || filename.contains("..") ? null : filename;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 获取内部文件路径（缩略图等派生文件，不经过别名映射）
+     *
+     * @param key 相对上传目录的路径
+     */
+    public Path getInternalPath(String key) {
+        return uploadPath.resolve(key).normalize();
+    }
+
+    /**
+     * 获取文件元数据（带缓存，命中时不访问磁盘）
+     *
+     * @return 文件不存在时返回 null
+     */
+    public FileMetadata getFileMetadata(String filename) {
+        FileMetadata cached = metadataCache.get(filename);
+        if (cached != null) {
+            return cached;
+        }
+
+        Path filePath = getFilePath(filename);
+        try {
+            if (!Files.isRegularFile(filePath)) {
+                return null;
+            }
+            long length = Files.size(filePath);
+            long lastModified = Files.getLastModifiedTime(filePath).toMillis();
+            String etag = "\"" + Long.toHexString(lastModified) + "-" + Long.toHexString(length) + "\"";
+
+            FileMetadata metadata = new FileMetadata(filePath, length, lastModified, etag);
+            metadataCache.put(filename, metadata);
+            return metadata;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 清除文件元数据缓存
+     */
+    public void evictMetadata(String filename) {
+        metadataCache.remove(filename);
     }
 
     /**
      * 删除文件
      */
     public void deleteFile(String filename) {
+        metadataCache.remove(filename);
+        thumbnailService.deleteDerivatives(filename);
         try {
-            Path filePath = uploadPath.resolve(filename).normalize();
-            Files.deleteIfExists(filePath);
+            Path filePath = storageBackend.locate(filename);
+            Path legacyPath = uploadPath.resolve(filename).normalize();
+            hotFileCache.invalidate(filePath);
+            hotFileCache.invalidate(legacyPath);
+            if (Files.deleteIfExists(filePath) || Files.deleteIfExists(legacyPath)) {
+                return;
+            }
+
+            Optional<FileAlias> alias = aliasRepository.findById(filename);
+            if (alias.isPresent()) {
+                releaseBlob(alias.get());
+            }
         } catch (IOException e) {
             throw new BusinessException("文件删除失败: " + e.getMessage());
         }
     }
+
+    /**
+     * 新文件的存储位置（按需创建分片目录）
+     */
+    private Path prepareTarget(String filename) throws IOException {
+        Path target = storageBackend.resolve(filename);
+        Files.createDirectories(target.getParent());
+        return target;
+    }
+
+    /**
+     * 移动文件，目标在其他卷上时退化为复制后删除
+     */
+    private void moveFile(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * 临时文件先做 moov 前置，再按最终内容计算摘要并移入内容存储
+     */
+    private void storeTempBlob(Path source, String filename) throws IOException {
+        fastStartService.process(filename, source);
+        String digest;
+        try (InputStream in = Files.newInputStream(source)) {
+            digest = digest(in);
+        }
+        storeBlob(digest, Files.size(source), filename,
+                target -> Files.move(source, target, StandardCopyOption.ATOMIC_MOVE));
+        Files.deleteIfExists(source);
+    }
+
+    /**
+     * 保存内容并创建别名，内容已存在时只增加引用计数
+     * 引用计数、内容记录和别名在同一事务中写入；新内容先写到临时目录，事务提交后再移入内容存储，
+     * 事务回滚时删除临时内容，不会留下没有记录的内容文件或指向不存在内容的别名
+     */
+    private void storeBlob(String digest, long size, String filename, BlobWriter writer) throws IOException {
+        synchronized (lockFor(digest)) {
+            Path staged = tempPath.resolve(digest + "-" + UUID.randomUUID() + ".blob");
+            boolean created;
+            try {
+                created = Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+                    boolean isNew = blobRepository.addRefCount(digest, 1) == 0;
+                    if (isNew) {
+                        try {
+                            writer.writeTo(staged);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                        blobRepository.save(new FileBlob(digest, size, 1, null));
+                    }
+                    aliasRepository.save(new FileAlias(filename, digest, null));
+                    return isNew;
+                }));
+            } catch (UncheckedIOException e) {
+                deleteQuietly(staged);
+                throw e.getCause();
+            } catch (RuntimeException e) {
+                deleteQuietly(staged);
+                throw e;
+            }
+            if (!created) {
+                return;
+            }
+
+            Path target = resolveBlob(digest);
+            try {
+                Files.createDirectories(target.getParent());
+                moveFile(staged, target);
+            } catch (IOException | RuntimeException e) {
+                // 内容未能移入存储，撤销已提交的记录
+                deleteQuietly(staged);
+                transactionTemplate.executeWithoutResult(status -> {
+                    aliasRepository.deleteById(filename);
+                    blobRepository.deleteById(digest);
+                });
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * 删除别名，最后一个引用删除时同时删除内容
+     * 别名、引用计数和内容记录在同一事务中修改，内容文件在事务提交后删除
+     */
+    private void releaseBlob(FileAlias alias) throws IOException {
+        String digest = alias.getDigest();
+        synchronized (lockFor(digest)) {
+            boolean unreferenced = Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+                aliasRepository.delete(alias);
+                blobRepository.addRefCount(digest, -1);
+
+                Optional<FileBlob> blob = blobRepository.findById(digest);
+                if (blob.isPresent() && blob.get().getRefCount() <= 0) {
+                    blobRepository.delete(blob.get());
+                    return true;
+                }
+                return false;
+            }));
+            aliasCache.remove(alias.getFilename());
+
+            if (unreferenced) {
+                hotFileCache.invalidate(resolveBlob(digest));
+                Files.deleteIfExists(resolveBlob(digest));
+            }
+        }
+    }
+
+    /**
+     * 内容路径：.blobs/前两位/完整摘要
+     */
+    private Path resolveBlob(String digest) {
+        return blobPath.resolve(digest.substring(0, 2)).resolve(digest);
+    }
+
+    private Object lockFor(String digest) {
+        return blobLocks[Math.floorMod(digest.hashCode(), blobLocks.length)];
+    }
+
+    private void deleteQuietly(Path path) {
+        if (path == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            // 忽略
+        }
+    }
+
+    private MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private String digest(InputStream in) throws IOException {
+        MessageDigest md = sha256();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            md.update(buffer, 0, read);
+        }
+        return HexFormat.of().formatHex(md.digest());
+    }
+
+    /**
+     * 文件元数据
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class FileMetadata {
+
+        private final Path path;
+
+        private final long length;
+
+        private final long lastModified;
+
+        /**
+         * 强校验 ETag（修改时间 + 大小）
+         */
+        private final String etag;
+    }
+
+    /**
+     * 流式上传结果
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class StoredFile {
+
+        private final String filename;
+
+        private final long size;
+
+        /**
+         * 内容 SHA-256（十六进制）
+         */
+        private final String sha256;
+    }
+
+    /**
+     * 内容写入方式（复制上传流或移动临时文件）
+     */
+    @FunctionalInterface
+    private interface BlobWriter {
+        void writeTo(Path target) throws IOException;
+    }
 }
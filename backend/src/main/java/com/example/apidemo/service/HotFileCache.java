@@ -0,0 +1,305 @@
+package com.example.apidemo.service;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 小文件热点缓存
+ * 封面、头像等小文件缓存在堆外内存（DirectByteBuffer）中，按 LRU 淘汰，
+ * 新文件需要比被淘汰的文件访问更频繁才会被缓存（TinyLFU 准入），避免一次性访问冲掉热点。
+ * 按路径哈希分成若干段，每段各自加锁、各占一份容量，不同段的访问互不阻塞；
+ * 读文件在锁外进行，期间路径被失效时丢弃读到的内容，不放入缓存
+ */
+@Service
+public class HotFileCache {
+
+    @Value("${file.cache.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * 缓存总容量（字节）
+     */
+    @Value("${file.cache.capacity:67108864}")
+    private long capacity;
+
+    /**
+     * 可缓存的最大文件大小（字节），更大的文件直接从磁盘读取
+     */
+    @Value("${file.cache.max-entry-size:204800}")
+    private long maxEntrySize;
+
+    /**
+     * 分段数（锁的粒度），取 2 的幂
+     */
+    @Value("${file.cache.segments:16}")
+    private int segmentCount;
+
+    private Segment[] segments;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong rejections = new AtomicLong();
+    private final AtomicLong discardedLoads = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        int count = Integer.highestOneBit(Math.max(1, segmentCount));
+        segments = new Segment[count];
+        for (int i = 0; i < count; i++) {
+            segments[i] = new Segment(capacity / count, Math.max(256, (1 << 16) / count));
+        }
+    }
+
+    /**
+     * 文件是否可以缓存
+     */
+    public boolean accepts(long length) {
+        return enabled && length > 0 && length <= maxEntrySize && length <= segments[0].capacity;
+    }
+
+    /**
+     * 获取文件内容，未命中时按准入策略决定是否读入缓存
+     *
+     * @return 只读缓冲区；文件未被缓存时返回 null，调用方直接读磁盘
+     */
+    public ByteBuffer get(Path path, long length) throws IOException {
+        if (!accepts(length)) {
+            return null;
+        }
+
+        Segment segment = segmentFor(path);
+        long generation;
+        synchronized (segment) {
+            segment.sketch.increment(path);
+            ByteBuffer cached = segment.entries.get(path);
+            if (cached != null) {
+                hits.incrementAndGet();
+                return cached.asReadOnlyBuffer();
+            }
+            misses.incrementAndGet();
+            if (!segment.admit(path, length)) {
+                rejections.incrementAndGet();
+                return null;
+            }
+            // 登记本次读取，invalidate 会清除登记，读完后据此判断期间是否失效过
+            generation = ++segment.generation;
+            segment.loading.put(path, generation);
+        }
+
+        ByteBuffer buffer;
+        try {
+            buffer = load(path, length);
+        } catch (IOException | RuntimeException e) {
+            synchronized (segment) {
+                segment.loading.remove(path, generation);
+            }
+            throw e;
+        }
+
+        synchronized (segment) {
+            if (!segment.loading.remove(path, generation)) {
+                // 读取期间文件被失效（或有更新的读取），内容可能已过期，不放入缓存
+                discardedLoads.incrementAndGet();
+                return buffer.asReadOnlyBuffer();
+            }
+            ByteBuffer cached = segment.entries.get(path);
+            if (cached != null) {
+                return cached.asReadOnlyBuffer();
+            }
+            evictions.addAndGet(segment.makeRoom(length));
+            segment.entries.put(path, buffer);
+            segment.size += length;
+        }
+        return buffer.asReadOnlyBuffer();
+    }
+
+    /**
+     * 文件删除时使缓存失效（同时作废正在进行的读取）
+     */
+    public void invalidate(Path path) {
+        Segment segment = segmentFor(path);
+        synchronized (segment) {
+            segment.loading.remove(path);
+            ByteBuffer removed = segment.entries.remove(path);
+            if (removed != null) {
+                segment.size -= removed.capacity();
+            }
+        }
+    }
+
+    /**
+     * 缓存统计
+     */
+    public Map<String, Object> getStats() {
+        int entryCount = 0;
+        long sizeBytes = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                entryCount += segment.entries.size();
+                sizeBytes += segment.size;
+            }
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("segments", segments.length);
+        stats.put("entries", entryCount);
+        stats.put("sizeBytes", sizeBytes);
+        stats.put("capacityBytes", capacity);
+        stats.put("hits", hits.get());
+        stats.put("misses", misses.get());
+        stats.put("evictions", evictions.get());
+        stats.put("rejections", rejections.get());
+        stats.put("discardedLoads", discardedLoads.get());
+        return stats;
+    }
+
+    private Segment segmentFor(Path path) {
+        int h = path.hashCode() * 0x9e3779b9;
+        return segments[(h ^ (h >>> 16)) & (segments.length - 1)];
+    }
+
+    private ByteBuffer load(Path path, long length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocateDirect((int) length);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, buffer.position()) < 0) {
+                    throw new IOException("文件长度与元数据不一致: " + path);
+                }
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * 缓存分段，所有字段受该段的锁保护
+     */
+    private static class Segment {
+
+        private final long capacity;
+
+        /**
+         * 文件路径 -> 文件内容，按访问顺序排列
+         */
+        private final LinkedHashMap<Path, ByteBuffer> entries = new LinkedHashMap<>(64, 0.75f, true);
+
+        /**
+         * 正在读取的文件路径 -> 读取登记号
+         */
+        private final Map<Path, Long> loading = new HashMap<>();
+
+        private final FrequencySketch sketch;
+
+        private long size;
+
+        private long generation;
+
+        Segment(long capacity, int sketchWidth) {
+            this.capacity = capacity;
+            this.sketch = new FrequencySketch(sketchWidth);
+        }
+
+        /**
+         * TinyLFU 准入：空间不足时，新文件的访问频率必须高于将被淘汰的文件
+         */
+        boolean admit(Path path, long length) {
+            long needed = size + length - capacity;
+            if (needed <= 0) {
+                return true;
+            }
+            int candidateFrequency = sketch.frequency(path);
+            long freed = 0;
+            for (Map.Entry<Path, ByteBuffer> victim : entries.entrySet()) {
+                if (sketch.frequency(victim.getKey()) >= candidateFrequency) {
+                    return false;
+                }
+                freed += victim.getValue().capacity();
+                if (freed >= needed) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * @return 淘汰的条目数
+         */
+        int makeRoom(long length) {
+            int evicted = 0;
+            Iterator<Map.Entry<Path, ByteBuffer>> iterator = entries.entrySet().iterator();
+            while (size + length > capacity && iterator.hasNext()) {
+                size -= iterator.next().getValue().capacity();
+                iterator.remove();
+                evicted++;
+            }
+            return evicted;
+        }
+    }
+
+    /**
+     * Count-Min Sketch 访问频率估计，计数总量达到阈值后全部减半，让历史热度逐渐衰减
+     */
+    private static class FrequencySketch {
+
+        private static final int DEPTH = 4;
+
+        private static final int[] SEEDS = { 0x97cb3127, 0xb7a6f1c3, 0x2f1d3e5b, 0x8a5cd789 };
+
+        private final int[][] table;
+        private final int mask;
+        private final int sampleSize;
+        private int additions;
+
+        FrequencySketch(int width) {
+            this.table = new int[DEPTH][width];
+            this.mask = width - 1;
+            this.sampleSize = width * 10;
+        }
+
+        void increment(Object key) {
+            int hash = key.hashCode();
+            for (int i = 0; i < DEPTH; i++) {
+                table[i][index(hash, i)]++;
+            }
+            if (++additions >= sampleSize) {
+                reset();
+            }
+        }
+
+        int frequency(Object key) {
+            int hash = key.hashCode();
+            int min = Integer.MAX_VALUE;
+            for (int i = 0; i < DEPTH; i++) {
+                min = Math.min(min, table[i][index(hash, i)]);
+            }
+            return min;
+        }
+
+        private int index(int hash, int row) {
+            int h = (hash ^ SEEDS[row]) * 0x9e3779b9;
+            return (h ^ (h >>> 16)) & mask;
+        }
+
+        private void reset() {
+            for (int[] row : table) {
+                for (int i = 0; i < row.length; i++) {
+                    row[i] >>>= 1;
+                }
+            }
+            additions /= 2;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.apidemo.service;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ID 分配器（号段模式）
+ * 自增主键要逐行插入才能拿到 ID，无法批量插入；这里预先从 id_blocks 表取一段 ID，
+ * 插入语句直接带上 ID，就可以用 JDBC 批量执行。
+ * 号段首次使用时从表中当前最大 ID 之后开始，使用号段插入的表不能再依赖自增主键插入
+ */
+@Service
+public class IdAllocator {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /**
+     * 每次向数据库申请的最小号段长度
+     */
+    @Value("${id-allocator.block-size:100}")
+    private int blockSize;
+
+    private TransactionTemplate transactionTemplate;
+
+    /**
+     * 表名 -> 本进程尚未用完的号段
+     */
+    private final Map<String, long[]> ranges = new HashMap<>();
+
+    @PostConstruct
+    public void init() {
+        // 号段申请在独立事务中完成，不随调用方事务长时间持有行锁
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * 分配连续的 count 个 ID
+     *
+     * @param table 表名（需有名为 id 的主键列）
+     * @return 第一个 ID
+     */
+    public synchronized long allocate(String table, int count) {
+        if (!table.matches("[a-z_]+")) {
+            throw new IllegalArgumentException("非法表名: " + table);
+        }
+        long[] range = ranges.get(table);
+        if (range == null || range[1] - range[0] < count) {
+            long size = Math.max(count, blockSize);
+            long start = reserve(table, size);
+            range = new long[] { start, start + size };
+            ranges.put(table, range);
+        }
+        long first = range[0];
+        range[0] += count;
+        return first;
+    }
+
+    private long reserve(String table, long size) {
+        return transactionTemplate.execute(status -> {
+            List<Long> current = jdbcTemplate.queryForList(
+                    "SELECT next_id FROM id_blocks WHERE name = ? FOR UPDATE", Long.class, table);
+            if (current.isEmpty()) {
+                try {
+                    jdbcTemplate.update("INSERT INTO id_blocks (name, next_id) "
+                            + "SELECT ?, COALESCE(MAX(id), 0) + 1 FROM " + table, table);
+                } catch (DuplicateKeyException e) {
+                    // 其他实例已初始化
+                }
+                current = jdbcTemplate.queryForList(
+                        "SELECT next_id FROM id_blocks WHERE name = ? FOR UPDATE", Long.class, table);
+            }
+            long start = current.get(0);
+            jdbcTemplate.update("UPDATE id_blocks SET next_id = ? WHERE name = ?", start + size, table);
+            return start;
+        });
+    }
+}
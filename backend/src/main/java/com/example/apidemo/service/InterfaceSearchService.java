@@ -0,0 +1,566 @@
+package com.example.apidemo.service;
+
+import com.example.apidemo.entity.ApiInterface;
+import com.example.apidemo.entity.ApiParameter;
+import com.example.apidemo.repository.ApiInterfaceRepository;
+import com.example.apidemo.repository.ApiParameterJdbcRepository;
+import com.example.apidemo.repository.ApiParameterJdbcRepository.ParameterRow;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * 接口全文检索服务
+ * 内存倒排索引，覆盖接口名称、路径、描述以及参数名称和描述。
+ * 分词：拉丁字母与数字按单词切分（驼峰单词额外拆出各部分），中日韩文字切成单字和双字（n-gram）。
+ * 排序：按字段加权的词频做 BM25 式饱和，乘以 IDF，再按命中的查询词比例打折；英文查询词支持前缀匹配。
+ * 接口或参数变更提交后只重建该接口的索引项
+ */
+@Service
+public class InterfaceSearchService {
+
+    private static final float NAME_WEIGHT = 5f;
+    private static final float PATH_WEIGHT = 4f;
+    private static final float PARAM_NAME_WEIGHT = 1.5f;
+    private static final float DESCRIPTION_WEIGHT = 1f;
+
+    /**
+     * BM25 词频饱和参数
+     */
+    private static final float K1 = 1.2f;
+
+    /**
+     * 前缀匹配（非完整单词）的得分折扣
+     */
+    private static final float PREFIX_WEIGHT = 0.5f;
+
+    private static final int MAX_PREFIX_EXPANSIONS = 50;
+
+    public static final int MAX_LIMIT = 100;
+
+    @Autowired
+    private ApiInterfaceRepository interfaceRepository;
+
+    @Autowired
+    private ApiParameterJdbcRepository parameterJdbcRepository;
+
+    @Autowired
+    private ApiInterfaceService interfaceService;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * 词 -> 倒排表，按词排序以便前缀查找
+     */
+    private final TreeMap<String, Posting> postings = new TreeMap<>();
+
+    /**
+     * 接口ID -> 索引文档
+     */
+    private final Map<Long, IndexedInterface> documents = new HashMap<>();
+
+    /**
+     * 文档槽位 -> 索引文档；倒排表中记录槽位，检索时用数组累加得分
+     */
+    private IndexedInterface[] slots = new IndexedInterface[1024];
+
+    private int slotCount;
+
+    private final Deque<Integer> freeSlots = new ArrayDeque<>();
+
+    private volatile boolean loaded;
+
+    /**
+     * 是否已开始全量建立索引；开始之后提交的变更都需要应用到索引上
+     */
+    private volatile boolean loadStarted;
+
+    private final AtomicLong searches = new AtomicLong();
+    private final AtomicLong totalNanos = new AtomicLong();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    /**
+     * 检索接口，首次调用时全量建立索引
+     *
+     * @param categoryId 仅返回该栏目下的接口，null 表示不限
+     */
+    public List<SearchHit> search(String query, Long categoryId, int limit) {
+        if (!loaded) {
+            load();
+        }
+        long start = System.nanoTime();
+
+        List<QueryTerm> terms = parseQuery(query);
+        if (terms.isEmpty()) {
+            return List.of();
+        }
+        int size = Math.max(1, Math.min(limit, MAX_LIMIT));
+
+        List<SearchHit> hits = new ArrayList<>(size);
+        lock.readLock().lock();
+        try {
+            int total = documents.size();
+            float[] scores = new float[slotCount];
+            int[] matchedTerms = new int[slotCount];
+            int[] candidates = new int[slotCount];
+            int candidateCount = 0;
+            float[] termScores = new float[slotCount];
+            int[] touched = new int[slotCount];
+            for (QueryTerm term : terms) {
+                int touchedCount = scoreTerm(term, total, termScores, touched);
+                for (int i = 0; i < touchedCount; i++) {
+                    int slot = touched[i];
+                    if (matchedTerms[slot]++ == 0) {
+                        candidates[candidateCount++] = slot;
+                    }
+                    scores[slot] += termScores[slot];
+                    termScores[slot] = 0;
+                }
+            }
+
+            PriorityQueue<SearchHit> top = new PriorityQueue<>(size + 1, Comparator.comparingDouble(SearchHit::getScore));
+            for (int i = 0; i < candidateCount; i++) {
+                int slot = candidates[i];
+                IndexedInterface document = slots[slot];
+                if (categoryId != null && !categoryId.equals(document.getCategoryId())) {
+                    continue;
+                }
+                // 按命中的查询词比例打折
+                float finalScore = scores[slot] * matchedTerms[slot] / terms.size();
+                if (top.size() < size || finalScore > top.peek().getScore()) {
+                    top.add(new SearchHit(document.getId(), document.getCategoryId(), document.getName(),
+                            document.getMethod(), document.getPath(), finalScore));
+                    if (top.size() > size) {
+                        top.poll();
+                    }
+                }
+            }
+            hits.addAll(top);
+        } finally {
+            lock.readLock().unlock();
+        }
+        hits.sort(Comparator.comparingDouble(SearchHit::getScore).reversed()
+                .thenComparing(SearchHit::getId));
+
+        long elapsed = System.nanoTime() - start;
+        searches.incrementAndGet();
+        totalNanos.addAndGet(elapsed);
+        maxNanos.accumulateAndGet(elapsed, Math::max);
+        return hits;
+    }
+
+    /**
+     * 接口或参数变更提交后更新该接口的索引（串行处理，后读到的数据库状态后写入索引）
+     */
+    @TransactionalEventListener
+    public synchronized void onInterfaceChanged(ApiInterfaceChangedEvent event) {
+        if (!loadStarted) {
+            return;
+        }
+        Long id = event.getInterfaceId();
+        IndexedInterface document = null;
+        if (!event.isDeleted()) {
+            Optional<ApiInterface> apiInterface = interfaceRepository.findById(id);
+            if (apiInterface.isPresent()) {
+                document = analyze(apiInterface.get(), interfaceService.getParameters(id));
+            }
+        }
+
+        lock.writeLock().lock();
+        try {
+            if (!loaded) {
+                // 全量建立失败，下次检索时重建
+                return;
+            }
+            removeDocument(id);
+            if (document != null) {
+                addDocument(document);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 接口批量移动栏目提交后更新索引中的栏目（排序不参与检索，只排序时无需处理）
+     */
+    @TransactionalEventListener
+    public synchronized void onSortOrderChanged(SortOrderChangedEvent event) {
+        if (!loadStarted || !event.isMoved()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (!loaded) {
+                return;
+            }
+            for (Long id : event.getInterfaceOrders().keySet()) {
+                IndexedInterface document = documents.get(id);
+                if (document != null) {
+                    document.setCategoryId(event.getCategoryId());
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 索引统计
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        lock.readLock().lock();
+        try {
+            stats.put("loaded", loaded);
+            stats.put("documents", documents.size());
+            stats.put("terms", postings.size());
+        } finally {
+            lock.readLock().unlock();
+        }
+        long count = searches.get();
+        stats.put("searches", count);
+        stats.put("avgMillis", count == 0 ? 0 : totalNanos.get() / count / 1_000_000.0);
+        stats.put("maxMillis", maxNanos.get() / 1_000_000.0);
+        return stats;
+    }
+
+    /**
+     * 全量建立索引：接口一次查询，参数一次查询后按接口分组
+     */
+    private void load() {
+        lock.writeLock().lock();
+        try {
+            if (loaded) {
+                return;
+            }
+            loadStarted = true;
+            Map<Long, List<ParameterRow>> rowsByInterface = new HashMap<>();
+            for (ParameterRow row : parameterJdbcRepository.findAll()) {
+                rowsByInterface.computeIfAbsent(row.getInterfaceId(), id -> new ArrayList<>()).add(row);
+            }
+
+            postings.clear();
+            documents.clear();
+            Arrays.fill(slots, null);
+            slotCount = 0;
+            freeSlots.clear();
+            for (ApiInterface apiInterface : interfaceRepository.findAllByOrderBySortOrderAsc()) {
+                List<ParameterRow> rows = rowsByInterface.getOrDefault(apiInterface.getId(), List.of());
+                addDocument(analyze(apiInterface, interfaceService.buildParameterTree(rows)));
+            }
+            loaded = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 计算单个查询词在各文档上的得分（写入 termScores），前缀扩展出的多个词取最高分
+     *
+     * @return 命中的文档槽位数（写入 touched）
+     */
+    private int scoreTerm(QueryTerm term, int total, float[] termScores, int[] touched) {
+        Map<String, Posting> matched;
+        if (term.isPrefix()) {
+            matched = new LinkedHashMap<>();
+            for (Map.Entry<String, Posting> entry : postings.tailMap(term.getText(), true).entrySet()) {
+                if (!entry.getKey().startsWith(term.getText()) || matched.size() >= MAX_PREFIX_EXPANSIONS) {
+                    break;
+                }
+                matched.put(entry.getKey(), entry.getValue());
+            }
+        } else {
+            Posting posting = postings.get(term.getText());
+            matched = posting != null ? Map.of(term.getText(), posting) : Map.of();
+        }
+
+        // 扩展出的词不应比完整匹配更"稀有"，IDF 不超过完整匹配的词
+        Posting exact = matched.get(term.getText());
+        float maxIdf = exact != null ? idf(exact, total) : Float.MAX_VALUE;
+
+        int touchedCount = 0;
+        for (Map.Entry<String, Posting> entry : matched.entrySet()) {
+            Posting posting = entry.getValue();
+            float boost = posting == exact ? 1f : PREFIX_WEIGHT;
+            float idf = Math.min(idf(posting, total), maxIdf);
+            for (int i = 0; i < posting.size; i++) {
+                int slot = posting.slots[i];
+                float tf = posting.weights[i];
+                float score = boost * idf * tf * (K1 + 1) / (tf + K1);
+                if (termScores[slot] == 0) {
+                    touched[touchedCount++] = slot;
+                }
+                termScores[slot] = Math.max(termScores[slot], score);
+            }
+        }
+        return touchedCount;
+    }
+
+    private static float idf(Posting posting, int total) {
+        return (float) Math.log(1 + (total - posting.size + 0.5) / (posting.size + 0.5));
+    }
+
+    private IndexedInterface analyze(ApiInterface apiInterface, List<ApiParameter> parameters) {
+        Map<String, Float> terms = new HashMap<>();
+        index(terms, apiInterface.getName(), NAME_WEIGHT);
+        index(terms, apiInterface.getPath(), PATH_WEIGHT);
+        index(terms, apiInterface.getDescription(), DESCRIPTION_WEIGHT);
+        indexParameters(terms, parameters);
+
+        Long categoryId = apiInterface.getCategory() != null ? apiInterface.getCategory().getId() : null;
+        return new IndexedInterface(apiInterface.getId(), categoryId, apiInterface.getName(),
+                apiInterface.getMethod(), apiInterface.getPath(), terms);
+    }
+
+    private void indexParameters(Map<String, Float> terms, List<ApiParameter> parameters) {
+        if (parameters == null) {
+            return;
+        }
+        for (ApiParameter param : parameters) {
+            index(terms, param.getName(), PARAM_NAME_WEIGHT);
+            index(terms, param.getDescription(), DESCRIPTION_WEIGHT);
+            indexParameters(terms, param.getChildren());
+        }
+    }
+
+    private static void index(Map<String, Float> terms, String text, float weight) {
+        tokenize(text, true, token -> terms.merge(token, weight, Float::sum));
+    }
+
+    private void addDocument(IndexedInterface document) {
+        int slot;
+        if (!freeSlots.isEmpty()) {
+            slot = freeSlots.pop();
+        } else {
+            slot = slotCount++;
+            if (slot == slots.length) {
+                slots = Arrays.copyOf(slots, slots.length * 2);
+            }
+        }
+        document.setSlot(slot);
+        slots[slot] = document;
+        documents.put(document.getId(), document);
+        for (Map.Entry<String, Float> term : document.getTerms().entrySet()) {
+            postings.computeIfAbsent(term.getKey(), key -> new Posting()).add(slot, term.getValue());
+        }
+    }
+
+    private void removeDocument(Long id) {
+        IndexedInterface document = documents.remove(id);
+        if (document == null) {
+            return;
+        }
+        for (String term : document.getTerms().keySet()) {
+            Posting posting = postings.get(term);
+            if (posting != null) {
+                posting.remove(document.getSlot());
+                if (posting.size == 0) {
+                    postings.remove(term);
+                }
+            }
+        }
+        slots[document.getSlot()] = null;
+        freeSlots.push(document.getSlot());
+    }
+
+    /**
+     * 解析查询：中日韩文字两字以上按双字、单字按单字精确匹配；英文单词按前缀匹配
+     */
+    private static List<QueryTerm> parseQuery(String query) {
+        Map<String, QueryTerm> terms = new LinkedHashMap<>();
+        tokenize(query, false, token -> terms.putIfAbsent(token,
+                new QueryTerm(token, !isCjk(token.codePointAt(0)))));
+        return new ArrayList<>(terms.values());
+    }
+
+    /**
+     * 分词
+     *
+     * @param forIndex 建索引时中日韩文字同时输出单字和双字，查询时只输出双字（单字查询除外）
+     */
+    private static void tokenize(String text, boolean forIndex, Consumer<String> consumer) {
+        if (text == null || text.isEmpty()) {
+            return;
+        }
+        int length = text.length();
+        int i = 0;
+        while (i < length) {
+            int codePoint = text.codePointAt(i);
+            if (isCjk(codePoint)) {
+                int start = i;
+                while (i < length && isCjk(text.codePointAt(i))) {
+                    i += Character.charCount(text.codePointAt(i));
+                }
+                emitCjk(text.substring(start, i), forIndex, consumer);
+            } else if (Character.isLetterOrDigit(codePoint)) {
+                int start = i;
+                while (i < length) {
+                    int current = text.codePointAt(i);
+                    if (!Character.isLetterOrDigit(current) || isCjk(current)) {
+                        break;
+                    }
+                    i += Character.charCount(current);
+                }
+                emitWord(text.substring(start, i), consumer);
+            } else {
+                i += Character.charCount(codePoint);
+            }
+        }
+    }
+
+    private static void emitCjk(String run, boolean forIndex, Consumer<String> consumer) {
+        int[] codePoints = run.codePoints().toArray();
+        if (forIndex || codePoints.length == 1) {
+            for (int codePoint : codePoints) {
+                consumer.accept(new String(Character.toChars(codePoint)));
+            }
+        }
+        for (int i = 0; i + 1 < codePoints.length; i++) {
+            consumer.accept(new String(codePoints, i, 2));
+        }
+    }
+
+    /**
+     * 输出整个单词，驼峰或字母数字混合的单词再拆出各部分（getUserInfo -> getuserinfo, get, user, info）
+     */
+    private static void emitWord(String word, Consumer<String> consumer) {
+        consumer.accept(word.toLowerCase(Locale.ROOT));
+
+        List<String> parts = new ArrayList<>();
+        int start = 0;
+        for (int i = 1; i < word.length(); i++) {
+            char previous = word.charAt(i - 1);
+            char current = word.charAt(i);
+            boolean boundary = (Character.isLowerCase(previous) && Character.isUpperCase(current))
+                    || (Character.isDigit(previous) != Character.isDigit(current))
+                    || (Character.isUpperCase(previous) && Character.isUpperCase(current)
+                            && i + 1 < word.length() && Character.isLowerCase(word.charAt(i + 1)));
+            if (boundary) {
+                parts.add(word.substring(start, i));
+                start = i;
+            }
+        }
+        if (start > 0) {
+            parts.add(word.substring(start));
+            for (String part : parts) {
+                consumer.accept(part.toLowerCase(Locale.ROOT));
+            }
+        }
+    }
+
+    private static boolean isCjk(int codePoint) {
+        Character.UnicodeScript script = Character.UnicodeScript.of(codePoint);
+        return script == Character.UnicodeScript.HAN
+                || script == Character.UnicodeScript.HIRAGANA
+                || script == Character.UnicodeScript.KATAKANA
+                || script == Character.UnicodeScript.HANGUL;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static class QueryTerm {
+
+        private final String text;
+
+        /**
+         * 是否按前缀匹配
+         */
+        private final boolean prefix;
+    }
+
+    /**
+     * 倒排表：文档槽位与加权词频
+     */
+    private static class Posting {
+
+        private int[] slots = new int[4];
+        private float[] weights = new float[4];
+        private int size;
+
+        void add(int slot, float weight) {
+            if (size == slots.length) {
+                slots = Arrays.copyOf(slots, size * 2);
+                weights = Arrays.copyOf(weights, size * 2);
+            }
+            slots[size] = slot;
+            weights[size] = weight;
+            size++;
+        }
+
+        /**
+         * 与末尾元素交换后删除（倒排表内顺序无关）
+         */
+        void remove(int slot) {
+            for (int i = 0; i < size; i++) {
+                if (slots[i] == slot) {
+                    size--;
+                    slots[i] = slots[size];
+                    weights[i] = weights[size];
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * 索引文档
+     */
+    @Getter
+    private static class IndexedInterface {
+
+        private final Long id;
+
+        /**
+         * 批量移动栏目时直接修改（持有写锁）
+         */
+        @Setter
+        private Long categoryId;
+
+        private final String name;
+        private final String method;
+        private final String path;
+
+        /**
+         * 词 -> 加权词频
+         */
+        private final Map<String, Float> terms;
+
+        @Setter
+        private int slot;
+
+        IndexedInterface(Long id, Long categoryId, String name, String method, String path,
+                Map<String, Float> terms) {
+            this.id = id;
+            this.categoryId = categoryId;
+            this.name = name;
+            this.method = method;
+            this.path = path;
+            this.terms = terms;
+        }
+    }
+
+    /**
+     * 检索结果
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class SearchHit {
+
+        private final Long id;
+        private final Long categoryId;
+        private final String name;
+        private final String method;
+        private final String path;
+        private final float score;
+    }
+}
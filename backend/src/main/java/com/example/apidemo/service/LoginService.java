@@ -0,0 +1,143 @@
+package com.example.apidemo.service;
+
+import com.example.apidemo.common.ServiceBusyException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 登录服务
+ * BCrypt 校验在独立的有界线程池中异步执行，请求线程不等待校验结果，登录高峰不会占满 Tomcat 请求线程。
+ * 队列已满时立即返回 429，排队超时返回 503
+ */
+@Service
+public class LoginService {
+
+    @Autowired
+    private AuthenticationManager authenticationManager;
+
+    @Value("${auth.login.workers:2}")
+    private int workers;
+
+    @Value("${auth.login.queue-capacity:100}")
+    private int queueCapacity;
+
+    /**
+     * 等待校验结果的最长时间（毫秒，含排队时间）
+     */
+    @Value("${auth.login.timeout:5000}")
+    private long timeout;
+
+    private ThreadPoolExecutor executor;
+
+    private final LatencyStats queueWait = new LatencyStats();
+    private final LatencyStats hashTime = new LatencyStats();
+    private final AtomicLong rejectedLogins = new AtomicLong();
+    private final AtomicLong timedOutLogins = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadIndex = new AtomicInteger();
+        executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "login-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 校验用户名和密码（异步，调用方不阻塞等待 BCrypt 校验）
+     *
+     * @return 校验结果；线程池已满时立即抛出，等待超时时以 ServiceBusyException 异常完成
+     * @throws ServiceBusyException 校验线程池已满
+     */
+    public CompletableFuture<Authentication> authenticate(String username, String password) {
+        long submittedAt = System.nanoTime();
+        CompletableFuture<Authentication> future;
+        try {
+            future = CompletableFuture.supplyAsync(() -> {
+                long startedAt = System.nanoTime();
+                queueWait.record(startedAt - submittedAt);
+                try {
+                    return authenticationManager.authenticate(
+                            new UsernamePasswordAuthenticationToken(username, password));
+                } finally {
+                    hashTime.record(System.nanoTime() - startedAt);
+                }
+            }, executor);
+        } catch (RejectedExecutionException e) {
+            rejectedLogins.incrementAndGet();
+            throw new ServiceBusyException(429, "登录请求过多，请稍后重试", 1);
+        }
+
+        // 超时后 future 已完成，仍在排队的任务出队时不会再执行校验
+        return future.orTimeout(timeout, TimeUnit.MILLISECONDS)
+                .exceptionallyCompose(e -> {
+                    Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                    if (cause instanceof TimeoutException) {
+                        timedOutLogins.incrementAndGet();
+                        cause = new ServiceBusyException(503, "登录服务繁忙，请稍后重试", Math.max(1, timeout / 1000));
+                    }
+                    return CompletableFuture.failedFuture(cause);
+                });
+    }
+
+    /**
+     * 登录线程池统计
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("workers", workers);
+        stats.put("activeWorkers", executor.getActiveCount());
+        stats.put("queueSize", executor.getQueue().size());
+        stats.put("queueCapacity", queueCapacity);
+        stats.put("completedLogins", executor.getCompletedTaskCount());
+        stats.put("rejectedLogins", rejectedLogins.get());
+        stats.put("timedOutLogins", timedOutLogins.get());
+        stats.put("queueWait", queueWait.toMap());
+        stats.put("hashTime", hashTime.toMap());
+        return stats;
+    }
+
+    /**
+     * 耗时统计（次数、平均、最大，单位毫秒）
+     */
+    private static class LatencyStats {
+
+        private long count;
+        private long totalNanos;
+        private long maxNanos;
+
+        synchronized void record(long nanos) {
+            count++;
+            totalNanos += nanos;
+            maxNanos = Math.max(maxNanos, nanos);
+        }
+
+        synchronized Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("count", count);
+            map.put("avgMillis", count == 0 ? 0 : totalNanos / count / 1_000_000.0);
+            map.put("maxMillis", maxNanos / 1_000_000.0);
+            return map;
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package com.example.apidemo.service;
+
+import com.example.apidemo.common.PathRouter;
+import com.example.apidemo.entity.ApiInterface;
+import com.example.apidemo.repository.ApiInterfaceRepository;
+import com.example.apidemo.repository.ApiParameterJdbcRepository;
+import com.example.apidemo.repository.ApiParameterJdbcRepository.ParameterRow;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Mock 服务
+ * 把所有接口按 方法 + 路径 编译成内存路由表，每个接口的JSON示例预先序列化为字节，请求时只做路由匹配和写出。
+ * 接口或参数变更提交后只重新生成该接口的示例，再由内存数据重建路由表并整体替换（读请求无锁）
+ */
+@Service
+public class MockServerService {
+
+    @Autowired
+    private ApiInterfaceRepository interfaceRepository;
+
+    @Autowired
+    private ApiParameterJdbcRepository parameterJdbcRepository;
+
+    @Autowired
+    private ApiInterfaceService interfaceService;
+
+    /**
+     * 接口ID -> Mock 接口
+     */
+    private final Map<Long, MockEndpoint> endpoints = new ConcurrentHashMap<>();
+
+    private volatile PathRouter<MockEndpoint> router;
+
+    /**
+     * 因路径为空或路径与方法重复而未生效的接口数
+     */
+    private volatile int skipped;
+
+    private final AtomicLong reloads = new AtomicLong();
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder notFound = new LongAdder();
+
+    /**
+     * 查找路径对应的 Mock 接口，首次调用时全量加载
+     *
+     * @return HTTP 方法 -> Mock 接口，路径不存在时返回 null
+     */
+    public Map<String, MockEndpoint> find(String path) {
+        PathRouter<MockEndpoint> current = router;
+        if (current == null) {
+            current = load();
+        }
+        requests.increment();
+        Map<String, MockEndpoint> found = current.find(path);
+        if (found == null) {
+            notFound.increment();
+        }
+        return found;
+    }
+
+    /**
+     * 接口或参数变更提交后更新该接口并重建路由表
+     */
+    @TransactionalEventListener
+    public synchronized void onInterfaceChanged(ApiInterfaceChangedEvent event) {
+        if (router == null) {
+            return;
+        }
+        Long id = event.getInterfaceId();
+        try {
+            Optional<ApiInterface> apiInterface = event.isDeleted()
+                    ? Optional.empty() : interfaceRepository.findById(id);
+            if (apiInterface.isPresent()) {
+                endpoints.put(id, compile(apiInterface.get(), interfaceService.generateJsonExample(id)));
+            } else {
+                endpoints.remove(id);
+            }
+            router = buildRouter();
+        } catch (RuntimeException e) {
+            // 下次请求时全量重新加载
+            router = null;
+        }
+    }
+
+    /**
+     * 批量排序提交后更新排序号，路由表只重建一次（示例不变，不重新生成）
+     */
+    @TransactionalEventListener
+    public synchronized void onSortOrderChanged(SortOrderChangedEvent event) {
+        if (router == null || event.getInterfaceOrders().isEmpty()) {
+            return;
+        }
+        event.getInterfaceOrders().forEach((id, sortOrder) -> endpoints.computeIfPresent(id,
+                (key, endpoint) -> new MockEndpoint(endpoint.getInterfaceId(), endpoint.getMethod(),
+                        endpoint.getPath(), sortOrder, endpoint.getBody())));
+        router = buildRouter();
+    }
+
+    /**
+     * Mock 统计
+     */
+    public Map<String, Object> getStats() {
+        PathRouter<MockEndpoint> current = router;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("loaded", current != null);
+        stats.put("routes", current != null ? current.size() : 0);
+        stats.put("skipped", skipped);
+        stats.put("reloads", reloads.get());
+        stats.put("requests", requests.sum());
+        stats.put("notFound", notFound.sum());
+        return stats;
+    }
+
+    /**
+     * 全量加载：接口一次查询，参数一次查询后按接口分组生成示例
+     */
+    private synchronized PathRouter<MockEndpoint> load() {
+        if (router != null) {
+            return router;
+        }
+
+        Map<Long, List<ParameterRow>> rowsByInterface = new HashMap<>();
+        for (ParameterRow row : parameterJdbcRepository.findAll()) {
+            rowsByInterface.computeIfAbsent(row.getInterfaceId(), id -> new ArrayList<>()).add(row);
+        }
+
+        endpoints.clear();
+        for (ApiInterface apiInterface : interfaceRepository.findAllByOrderBySortOrderAsc()) {
+            List<ParameterRow> rows = rowsByInterface.getOrDefault(apiInterface.getId(), List.of());
+            String json = interfaceService.generateJsonExample(interfaceService.buildParameterTree(rows));
+            endpoints.put(apiInterface.getId(), compile(apiInterface, json));
+        }
+        router = buildRouter();
+        return router;
+    }
+
+    /**
+     * 同一路径与方法有多个接口时，排序在前的生效
+     */
+    private PathRouter<MockEndpoint> buildRouter() {
+        List<MockEndpoint> sorted = new ArrayList<>(endpoints.values());
+        sorted.sort(Comparator.comparingInt(MockEndpoint::getSortOrder)
+                .thenComparingLong(MockEndpoint::getInterfaceId));
+
+        PathRouter<MockEndpoint> built = new PathRouter<>();
+        int skippedCount = 0;
+        for (MockEndpoint endpoint : sorted) {
+            if (endpoint.getPath() == null || !built.add(endpoint.getMethod(), endpoint.getPath(), endpoint)) {
+                skippedCount++;
+            }
+        }
+        skipped = skippedCount;
+        reloads.incrementAndGet();
+        return built;
+    }
+
+    private MockEndpoint compile(ApiInterface apiInterface, String json) {
+        String method = apiInterface.getMethod() != null ? apiInterface.getMethod().trim().toUpperCase() : "GET";
+        String path = apiInterface.getPath();
+        if (path != null) {
+            int query = path.indexOf('?');
+            path = (query >= 0 ? path.substring(0, query) : path).trim();
+        }
+        int sortOrder = apiInterface.getSortOrder() != null ? apiInterface.getSortOrder() : 0;
+        return new MockEndpoint(apiInterface.getId(), method, path == null || path.isEmpty() ? null : path,
+                sortOrder, json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Mock 接口
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class MockEndpoint {
+
+        private final Long interfaceId;
+        private final String method;
+        private final String path;
+        private final int sortOrder;
+
+        /**
+         * 预先序列化的JSON示例
+         */
+        private final byte[] body;
+    }
+}
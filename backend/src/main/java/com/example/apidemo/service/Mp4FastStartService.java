@@ -0,0 +1,280 @@
+package com.example.apidemo.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * MP4 快速启动处理（moov 前置）
+ * moov 位于 mdat 之后时，播放器必须先下载文件末尾才能开始播放。
+ * 这里把 moov 移到 mdat 之前并修正 stco/co64 中的 chunk 偏移量，文件数据通过 FileChannel 直接拷贝，
+ * 内存中只保留 moov
+ */
+@Service
+public class Mp4FastStartService {
+
+    private static final Set<String> SUPPORTED_EXTENSIONS = Set.of("mp4", "mov");
+
+    /**
+     * moov 大小上限，超过时不处理
+     */
+    private static final long MAX_MOOV_SIZE = 64L * 1024 * 1024;
+
+    private static final Set<String> CONTAINER_BOXES = Set.of("moov", "trak", "mdia", "minf", "stbl");
+
+    private static final int RECENT_REPORTS_SIZE = 100;
+
+    @Value("${file.faststart.enabled:false}")
+    private boolean enabled;
+
+    private final AtomicLong processedFiles = new AtomicLong();
+    private final AtomicLong relocatedFiles = new AtomicLong();
+    private final AtomicLong failedFiles = new AtomicLong();
+
+    private final Deque<Map<String, Object>> recentReports = new ArrayDeque<>();
+
+    /**
+     * 是否需要处理
+     */
+    public boolean supports(String filename) {
+        String extension = filename.substring(filename.lastIndexOf(".") + 1).toLowerCase();
+        return enabled && SUPPORTED_EXTENSIONS.contains(extension);
+    }
+
+    /**
+     * 处理文件，moov 已在 mdat 之前时不做改动
+     *
+     * @param filename 文件名（用于统计）
+     * @param file     文件路径，改写结果先写入同目录下的隐藏临时文件，再原子替换
+     * @return 是否改写了文件
+     */
+    public boolean process(String filename, Path file) {
+        if (!supports(filename)) {
+            return false;
+        }
+        long startedAt = System.currentTimeMillis();
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("filename", filename);
+        boolean relocated = false;
+
+        Path temp = null;
+        try {
+            try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+                long fileSize = in.size();
+                report.put("fileSize", fileSize);
+
+                List<Box> boxes = scanTopLevel(in);
+                Box moov = findBox(boxes, "moov");
+                Box mdat = findBox(boxes, "mdat");
+                if (moov == null || mdat == null) {
+                    throw new IOException("缺少 moov 或 mdat");
+                }
+                report.put("startupBytesBefore", moov.end());
+
+                if (moov.offset < mdat.offset) {
+                    report.put("startupBytesAfter", moov.end());
+                } else {
+                    if (moov.size > MAX_MOOV_SIZE) {
+                        throw new IOException("moov 过大");
+                    }
+                    ByteBuffer moovData = ByteBuffer.allocate((int) moov.size);
+                    readFully(in, moovData, moov.offset);
+                    patchOffsets(moovData, moov.headerSize, (int) moov.size, mdat.offset, moov.size);
+                    moovData.flip();
+
+                    // 新布局：mdat 之前的 box + moov + 其余 box（去掉原 moov）
+                    temp = Files.createTempFile(file.getParent(), ".faststart-", ".tmp");
+                    try (FileChannel out = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                        transfer(in, 0, mdat.offset, out);
+                        while (moovData.hasRemaining()) {
+                            out.write(moovData);
+                        }
+                        transfer(in, mdat.offset, moov.offset - mdat.offset, out);
+                        transfer(in, moov.end(), fileSize - moov.end(), out);
+                        out.force(false);
+                    }
+                    report.put("startupBytesAfter", mdat.offset + moov.size);
+                    relocated = true;
+                }
+            }
+
+            if (relocated) {
+                Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                relocatedFiles.incrementAndGet();
+            }
+            processedFiles.incrementAndGet();
+        } catch (IOException | RuntimeException e) {
+            relocated = false;
+            failedFiles.incrementAndGet();
+            report.put("error", e.getMessage());
+        } finally {
+            if (temp != null) {
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException e) {
+                    // 忽略
+                }
+            }
+        }
+
+        report.put("relocated", relocated);
+        report.put("millis", System.currentTimeMillis() - startedAt);
+        synchronized (recentReports) {
+            recentReports.addFirst(report);
+            if (recentReports.size() > RECENT_REPORTS_SIZE) {
+                recentReports.removeLast();
+            }
+        }
+        return relocated;
+    }
+
+    /**
+     * 处理统计（含每个文件处理前后的启动字节数）
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("processedFiles", processedFiles.get());
+        stats.put("relocatedFiles", relocatedFiles.get());
+        stats.put("failedFiles", failedFiles.get());
+        synchronized (recentReports) {
+            stats.put("recentReports", new ArrayList<>(recentReports));
+        }
+        return stats;
+    }
+
+    private List<Box> scanTopLevel(FileChannel in) throws IOException {
+        List<Box> boxes = new ArrayList<>();
+        long fileSize = in.size();
+        long position = 0;
+        ByteBuffer header = ByteBuffer.allocate(16);
+        while (position + 8 <= fileSize) {
+            header.clear().limit(8);
+            readFully(in, header, position);
+            long size = Integer.toUnsignedLong(header.getInt(0));
+            String type = new String(header.array(), 4, 4, StandardCharsets.ISO_8859_1);
+            int headerSize = 8;
+            if (size == 1) {
+                header.clear().limit(16);
+                readFully(in, header, position);
+                size = header.getLong(8);
+                headerSize = 16;
+            } else if (size == 0) {
+                size = fileSize - position;
+            }
+            if (size < headerSize || position + size > fileSize) {
+                throw new IOException("box 长度不合法: " + type);
+            }
+            boxes.add(new Box(type, position, size, headerSize));
+            position += size;
+        }
+        return boxes;
+    }
+
+    /**
+     * 递归修正 stco/co64 中的 chunk 偏移量
+     */
+    private void patchOffsets(ByteBuffer buffer, int start, int end, long insertPosition, long delta)
+            throws IOException {
+        int position = start;
+        while (position + 8 <= end) {
+            long size = Integer.toUnsignedLong(buffer.getInt(position));
+            String type = new String(buffer.array(), position + 4, 4, StandardCharsets.ISO_8859_1);
+            int headerSize = 8;
+            if (size == 1) {
+                size = buffer.getLong(position + 8);
+                headerSize = 16;
+            } else if (size == 0) {
+                size = end - position;
+            }
+            if (size < headerSize || position + size > end) {
+                throw new IOException("moov 结构不合法: " + type);
+            }
+
+            int body = position + headerSize;
+            if (CONTAINER_BOXES.contains(type)) {
+                patchOffsets(buffer, body, (int) (position + size), insertPosition, delta);
+            } else if ("cmov".equals(type)) {
+                throw new IOException("不支持压缩的 moov");
+            } else if ("stco".equals(type)) {
+                int count = buffer.getInt(body + 4);
+                for (int i = 0; i < count; i++) {
+                    int index = body + 8 + i * 4;
+                    long offset = Integer.toUnsignedLong(buffer.getInt(index));
+                    if (offset < insertPosition || offset + delta > 0xFFFFFFFFL) {
+                        throw new IOException("chunk 偏移量无法修正");
+                    }
+                    buffer.putInt(index, (int) (offset + delta));
+                }
+            } else if ("co64".equals(type)) {
+                int count = buffer.getInt(body + 4);
+                for (int i = 0; i < count; i++) {
+                    int index = body + 8 + i * 8;
+                    long offset = buffer.getLong(index);
+                    if (offset < insertPosition) {
+                        throw new IOException("chunk 偏移量无法修正");
+                    }
+                    buffer.putLong(index, offset + delta);
+                }
+            }
+            position += (int) size;
+        }
+    }
+
+    private Box findBox(List<Box> boxes, String type) {
+        return boxes.stream().filter(box -> box.type.equals(type)).findFirst().orElse(null);
+    }
+
+    private void readFully(FileChannel in, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = in.read(buffer, position);
+            if (read < 0) {
+                throw new IOException("文件不完整");
+            }
+            position += read;
+        }
+    }
+
+    private void transfer(FileChannel in, long position, long count, FileChannel out) throws IOException {
+        while (count > 0) {
+            long written = in.transferTo(position, count, out);
+            if (written <= 0) {
+                throw new IOException("文件拷贝失败");
+            }
+            position += written;
+            count -= written;
+        }
+    }
+
+    /**
+     * 顶层 box
+     */
+    private static class Box {
+
+        private final String type;
+        private final long offset;
+        private final long size;
+        private final int headerSize;
+
+        Box(String type, long offset, long size, int headerSize) {
+            this.type = type;
+            this.offset = offset;
+            this.size = size;
+            this.headerSize = headerSize;
+        }
+
+        long end() {
+            return offset + size;
+        }
+    }
+}
@@ -0,0 +1,594 @@
+package com.example.apidemo.service;
+
+import com.example.apidemo.common.BusinessException;
+import com.example.apidemo.entity.ApiInterface;
+import com.example.apidemo.entity.ApiParameter;
+import com.example.apidemo.entity.Category;
+import com.example.apidemo.repository.ApiInterfaceRepository;
+import com.example.apidemo.repository.ApiParameterJdbcRepository;
+import com.example.apidemo.repository.ApiParameterJdbcRepository.ParameterRow;
+import com.example.apidemo.repository.CategoryRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.DigestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * OpenAPI 3 文档服务
+ * 每个接口预先生成一个 Operation 片段（JSON 文本），接口或参数变更提交后只重新生成该接口的片段，
+ * 片段不含标签（拼接时按所属栏目写入），栏目变更和批量排序只更新栏目与排序号，不重新生成片段；文档由片段拼接而成，并同时保存 gzip 压缩结果，
+ * 没有变更时直接返回上次的结果，不访问数据库。
+ * 参数树的映射：POST/PUT/PATCH 作为 JSON 请求体，其他方法的顶层参数作为查询参数，
+ * 路径中的 {变量} 作为路径参数
+ */
+@Service
+public class OpenApiService {
+
+    private static final Set<String> HTTP_METHODS =
+            Set.of("get", "put", "post", "delete", "options", "head", "patch", "trace");
+
+    private static final Set<String> BODY_METHODS = Set.of("post", "put", "patch");
+
+    private static final Pattern PATH_VARIABLE = Pattern.compile("\\{([^}/]+)}");
+
+    @Autowired
+    private ApiInterfaceRepository interfaceRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private ApiParameterJdbcRepository parameterJdbcRepository;
+
+    @Autowired
+    private ApiInterfaceService interfaceService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${openapi.title:API Demo}")
+    private String title;
+
+    @Value("${openapi.version:1.0.0}")
+    private String version;
+
+    /**
+     * 接口ID -> Operation 片段
+     */
+    private final Map<Long, Operation> operations = new ConcurrentHashMap<>();
+
+    /**
+     * 栏目（按排序），片段中的标签名取自这里
+     */
+    private volatile Map<Long, Category> categories = Map.of();
+
+    /**
+     * 片段每变更一次加一，与文档记录的值不同时重新拼接
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    private volatile OpenApiDocument document;
+
+    /**
+     * 是否已完成全量加载（受 this 保护）
+     */
+    private boolean loaded;
+
+    private final AtomicLong fullBuilds = new AtomicLong();
+    private final AtomicLong patches = new AtomicLong();
+    private final AtomicLong assemblies = new AtomicLong();
+
+    /**
+     * 获取 OpenAPI 文档，首次调用时全量加载
+     */
+    public OpenApiDocument getDocument() {
+        OpenApiDocument current = document;
+        if (current != null && current.getGeneration() == generation.get()) {
+            return current;
+        }
+        return assemble();
+    }
+
+    /**
+     * 接口或参数变更提交后重新生成该接口的片段
+     */
+    @TransactionalEventListener
+    public synchronized void onInterfaceChanged(ApiInterfaceChangedEvent event) {
+        if (!loaded) {
+            return;
+        }
+        Long id = event.getInterfaceId();
+        try {
+            Optional<ApiInterface> apiInterface = event.isDeleted()
+                    ? Optional.empty() : interfaceRepository.findById(id);
+            if (apiInterface.isPresent()) {
+                operations.put(id, render(apiInterface.get(), interfaceService.getParameters(id)));
+            } else {
+                operations.remove(id);
+            }
+        } catch (RuntimeException e) {
+            // 片段可能已过期，下次请求时全量重建
+            loaded = false;
+        }
+        patches.incrementAndGet();
+        generation.incrementAndGet();
+    }
+
+    /**
+     * 栏目变更后刷新标签（片段不含标签，拼接时按栏目写入，无需重新生成）
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onCategoryChanged(CategoryChangedEvent event) {
+        if (!loaded) {
+            return;
+        }
+        try {
+            categories = loadCategories();
+        } catch (RuntimeException e) {
+            loaded = false;
+        }
+        patches.incrementAndGet();
+        generation.incrementAndGet();
+    }
+
+    /**
+     * 批量排序提交后只更新片段的排序号和栏目，不重新读取参数
+     */
+    @TransactionalEventListener
+    public synchronized void onSortOrderChanged(SortOrderChangedEvent event) {
+        if (!loaded) {
+            return;
+        }
+        try {
+            if (!event.getCategoryOrders().isEmpty()) {
+                categories = loadCategories();
+            }
+        } catch (RuntimeException e) {
+            loaded = false;
+        }
+        event.getInterfaceOrders().forEach((id, sortOrder) -> operations.computeIfPresent(id,
+                (key, op) -> new Operation(op.getInterfaceId(),
+                        event.isMoved() ? event.getCategoryId() : op.getCategoryId(),
+                        sortOrder, op.getMethod(), op.getPath(), op.getJson())));
+        patches.incrementAndGet();
+        generation.incrementAndGet();
+    }
+
+    /**
+     * 文档统计
+     */
+    public Map<String, Object> getStats() {
+        OpenApiDocument current = document;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("operations", operations.size());
+        stats.put("generation", generation.get());
+        stats.put("fullBuilds", fullBuilds.get());
+        stats.put("patches", patches.get());
+        stats.put("assemblies", assemblies.get());
+        stats.put("skipped", current != null ? current.getSkipped() : 0);
+        stats.put("bytes", current != null ? current.getBody().length : 0);
+        stats.put("gzipBytes", current != null ? current.getGzipBody().length : 0);
+        return stats;
+    }
+
+    private synchronized OpenApiDocument assemble() {
+        if (!loaded) {
+            loadAll();
+        }
+        long currentGeneration = generation.get();
+        OpenApiDocument current = document;
+        if (current != null && current.getGeneration() == currentGeneration) {
+            return current;
+        }
+
+        Map<Long, Integer> categoryOrder = new HashMap<>();
+        for (Long categoryId : categories.keySet()) {
+            categoryOrder.put(categoryId, categoryOrder.size());
+        }
+        List<Operation> sorted = new ArrayList<>(operations.values());
+        sorted.sort(Comparator
+                .comparingInt((Operation op) -> categoryOrder.getOrDefault(op.getCategoryId(), Integer.MAX_VALUE))
+                .thenComparingInt(Operation::getSortOrder)
+                .thenComparingLong(Operation::getInterfaceId));
+
+        // 路径 -> 方法 -> 片段；同一路径和方法只保留排在前面的接口
+        Map<String, Map<String, Operation>> paths = new LinkedHashMap<>();
+        int skipped = 0;
+        for (Operation op : sorted) {
+            if (op.getPath() == null
+                    || paths.computeIfAbsent(op.getPath(), path -> new LinkedHashMap<>()).putIfAbsent(op.getMethod(), op) != null) {
+                skipped++;
+            }
+        }
+
+        // 栏目ID -> 片段开头的标签 {"tags":["栏目名"],
+        Map<Long, String> tagPrefixes = new HashMap<>();
+        for (Category category : categories.values()) {
+            if (category.getName() != null) {
+                try {
+                    tagPrefixes.put(category.getId(),
+                            "{\"tags\":[" + objectMapper.writeValueAsString(category.getName()) + "],");
+                } catch (IOException e) {
+                    throw new BusinessException("OpenAPI文档生成失败: " + e.getMessage());
+                }
+            }
+        }
+
+        byte[] body;
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                generator.writeStartObject();
+                generator.writeStringField("openapi", "3.0.3");
+                generator.writeObjectFieldStart("info");
+                generator.writeStringField("title", title);
+                generator.writeStringField("version", version);
+                generator.writeEndObject();
+
+                generator.writeArrayFieldStart("tags");
+                Set<String> tagNames = new HashSet<>();
+                for (Category category : categories.values()) {
+                    if (category.getName() != null && tagNames.add(category.getName())) {
+                        generator.writeStartObject();
+                        generator.writeStringField("name", category.getName());
+                        if (category.getDescription() != null && !category.getDescription().isEmpty()) {
+                            generator.writeStringField("description", category.getDescription());
+                        }
+                        generator.writeEndObject();
+                    }
+                }
+                generator.writeEndArray();
+
+                generator.writeObjectFieldStart("paths");
+                for (Map.Entry<String, Map<String, Operation>> path : paths.entrySet()) {
+                    generator.writeObjectFieldStart(path.getKey());
+                    for (Map.Entry<String, Operation> method : path.getValue().entrySet()) {
+                        generator.writeFieldName(method.getKey());
+                        Operation op = method.getValue();
+                        String tagPrefix = op.getCategoryId() != null ? tagPrefixes.get(op.getCategoryId()) : null;
+                        if (tagPrefix != null) {
+                            // 标签作为片段的第一个字段，替换片段开头的 {
+                            generator.writeRawValue(tagPrefix);
+                            generator.writeRaw(op.getJson(), 1, op.getJson().length() - 1);
+                        } else {
+                            generator.writeRawValue(op.getJson());
+                        }
+                    }
+                    generator.writeEndObject();
+                }
+                generator.writeEndObject();
+                generator.writeEndObject();
+            }
+            body = out.toByteArray();
+        } catch (IOException e) {
+            throw new BusinessException("OpenAPI文档生成失败: " + e.getMessage());
+        }
+
+        String hash = DigestUtils.md5DigestAsHex(body);
+        document = new OpenApiDocument(currentGeneration, body, gzip(body),
+                "\"" + hash + "\"", "\"" + hash + "-gzip\"", skipped);
+        assemblies.incrementAndGet();
+        return document;
+    }
+
+    /**
+     * 全量加载：栏目、接口各一次查询，参数一次查询后按接口分组
+     */
+    private void loadAll() {
+        categories = loadCategories();
+
+        Map<Long, List<ParameterRow>> rowsByInterface = new HashMap<>();
+        for (ParameterRow row : parameterJdbcRepository.findAll()) {
+            rowsByInterface.computeIfAbsent(row.getInterfaceId(), id -> new ArrayList<>()).add(row);
+        }
+
+        operations.clear();
+        for (ApiInterface apiInterface : interfaceRepository.findAllByOrderBySortOrderAsc()) {
+            List<ParameterRow> rows = rowsByInterface.getOrDefault(apiInterface.getId(), List.of());
+            operations.put(apiInterface.getId(), render(apiInterface, interfaceService.buildParameterTree(rows)));
+        }
+        loaded = true;
+        fullBuilds.incrementAndGet();
+        generation.incrementAndGet();
+    }
+
+    private Map<Long, Category> loadCategories() {
+        Map<Long, Category> loadedCategories = new LinkedHashMap<>();
+        for (Category category : categoryRepository.findAllByOrderBySortOrderAsc()) {
+            loadedCategories.put(category.getId(), category);
+        }
+        return loadedCategories;
+    }
+
+    /**
+     * 生成接口的 Operation 片段
+     */
+    private Operation render(ApiInterface apiInterface, List<ApiParameter> parameters) {
+        Long categoryId = apiInterface.getCategory() != null ? apiInterface.getCategory().getId() : null;
+        String method = apiInterface.getMethod() != null ? apiInterface.getMethod().trim().toLowerCase() : "get";
+        String path = normalizePath(apiInterface.getPath());
+        if (!HTTP_METHODS.contains(method)) {
+            path = null;
+        }
+        boolean hasBody = BODY_METHODS.contains(method);
+
+        Map<String, ApiParameter> topLevel = distinctByName(parameters);
+        Set<String> pathVariables = new LinkedHashSet<>();
+        if (path != null) {
+            Matcher matcher = PATH_VARIABLE.matcher(path);
+            while (matcher.find()) {
+                pathVariables.add(matcher.group(1));
+            }
+        }
+
+        StringWriter out = new StringWriter();
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.writeStartObject();
+            generator.writeStringField("summary", apiInterface.getName());
+            if (apiInterface.getDescription() != null && !apiInterface.getDescription().isEmpty()) {
+                generator.writeStringField("description", apiInterface.getDescription());
+            }
+            generator.writeStringField("operationId", "interface" + apiInterface.getId());
+
+            generator.writeArrayFieldStart("parameters");
+            for (String name : pathVariables) {
+                ApiParameter param = topLevel.get(name);
+                generator.writeStartObject();
+                generator.writeStringField("name", name);
+                generator.writeStringField("in", "path");
+                generator.writeBooleanField("required", true);
+                if (param != null && param.getDescription() != null && !param.getDescription().isEmpty()) {
+                    generator.writeStringField("description", param.getDescription());
+                }
+                generator.writeFieldName("schema");
+                if (param != null) {
+                    writeSchema(generator, param);
+                } else {
+                    generator.writeStartObject();
+                    generator.writeStringField("type", "string");
+                    generator.writeEndObject();
+                }
+                generator.writeEndObject();
+            }
+            if (!hasBody) {
+                for (ApiParameter param : topLevel.values()) {
+                    if (pathVariables.contains(param.getName())) {
+                        continue;
+                    }
+                    generator.writeStartObject();
+                    generator.writeStringField("name", param.getName());
+                    generator.writeStringField("in", "query");
+                    generator.writeBooleanField("required", Boolean.TRUE.equals(param.getRequired()));
+                    if (param.getDescription() != null && !param.getDescription().isEmpty()) {
+                        generator.writeStringField("description", param.getDescription());
+                    }
+                    generator.writeFieldName("schema");
+                    writeSchema(generator, param);
+                    generator.writeEndObject();
+                }
+            }
+            generator.writeEndArray();
+
+            if (hasBody && !topLevel.isEmpty()) {
+                generator.writeObjectFieldStart("requestBody");
+                generator.writeBooleanField("required", true);
+                generator.writeObjectFieldStart("content");
+                generator.writeObjectFieldStart("application/json");
+                generator.writeFieldName("schema");
+                writeObjectSchema(generator, topLevel.values());
+                generator.writeEndObject();
+                generator.writeEndObject();
+                generator.writeEndObject();
+            }
+
+            generator.writeObjectFieldStart("responses");
+            generator.writeObjectFieldStart("200");
+            generator.writeStringField("description", "成功");
+            generator.writeEndObject();
+            generator.writeEndObject();
+            generator.writeEndObject();
+        } catch (IOException e) {
+            throw new BusinessException("OpenAPI文档生成失败: " + e.getMessage());
+        }
+
+        int sortOrder = apiInterface.getSortOrder() != null ? apiInterface.getSortOrder() : 0;
+        return new Operation(apiInterface.getId(), categoryId, sortOrder, method, path, out.toString());
+    }
+
+    private void writeSchema(JsonGenerator generator, ApiParameter param) throws IOException {
+        String type = param.getType() != null ? param.getType().toLowerCase() : "string";
+        List<ApiParameter> children = param.getChildren() != null ? param.getChildren() : List.of();
+
+        if ("object".equals(type)) {
+            writeObjectSchema(generator, distinctByName(children).values(), param.getDescription());
+            return;
+        }
+
+        generator.writeStartObject();
+        switch (type) {
+            case "array":
+                generator.writeStringField("type", "array");
+                generator.writeFieldName("items");
+                if (!children.isEmpty()) {
+                    writeSchema(generator, children.get(0));
+                } else {
+                    generator.writeStartObject();
+                    generator.writeEndObject();
+                }
+                break;
+            case "number":
+                generator.writeStringField("type", "number");
+                break;
+            case "boolean":
+                generator.writeStringField("type", "boolean");
+                break;
+            default:
+                generator.writeStringField("type", "string");
+        }
+        if (param.getDescription() != null && !param.getDescription().isEmpty()) {
+            generator.writeStringField("description", param.getDescription());
+        }
+        writeExample(generator, type, param.getExampleValue());
+        generator.writeEndObject();
+    }
+
+    private void writeObjectSchema(JsonGenerator generator, Collection<ApiParameter> properties) throws IOException {
+        writeObjectSchema(generator, properties, null);
+    }
+
+    private void writeObjectSchema(JsonGenerator generator, Collection<ApiParameter> properties, String description)
+            throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("type", "object");
+        if (description != null && !description.isEmpty()) {
+            generator.writeStringField("description", description);
+        }
+        if (!properties.isEmpty()) {
+            generator.writeObjectFieldStart("properties");
+            for (ApiParameter property : properties) {
+                generator.writeFieldName(property.getName());
+                writeSchema(generator, property);
+            }
+            generator.writeEndObject();
+
+            List<String> required = properties.stream()
+                    .filter(property -> Boolean.TRUE.equals(property.getRequired()))
+                    .map(ApiParameter::getName)
+                    .toList();
+            if (!required.isEmpty()) {
+                generator.writeArrayFieldStart("required");
+                for (String name : required) {
+                    generator.writeString(name);
+                }
+                generator.writeEndArray();
+            }
+        }
+        generator.writeEndObject();
+    }
+
+    /**
+     * 示例值按类型输出，无法解析的数字示例不输出
+     */
+    private void writeExample(JsonGenerator generator, String type, String exampleValue) throws IOException {
+        if (exampleValue == null || exampleValue.isEmpty()) {
+            return;
+        }
+        switch (type) {
+            case "number":
+                try {
+                    if (exampleValue.contains(".")) {
+                        double value = Double.parseDouble(exampleValue);
+                        generator.writeNumberField("example", value);
+                    } else {
+                        long value = Long.parseLong(exampleValue);
+                        generator.writeNumberField("example", value);
+                    }
+                } catch (NumberFormatException e) {
+                    // 忽略
+                }
+                break;
+            case "boolean":
+                generator.writeBooleanField("example", Boolean.parseBoolean(exampleValue));
+                break;
+            case "array":
+                break;
+            default:
+                generator.writeStringField("example", exampleValue);
+        }
+    }
+
+    /**
+     * 同名参数保留第一次出现的位置、最后一次出现的定义（与JSON示例一致）
+     */
+    private static Map<String, ApiParameter> distinctByName(List<ApiParameter> parameters) {
+        Map<String, ApiParameter> byName = new LinkedHashMap<>();
+        for (ApiParameter param : parameters) {
+            if (param.getName() != null) {
+                byName.put(param.getName(), param);
+            }
+        }
+        return byName;
+    }
+
+    /**
+     * 规范化接口路径，无效路径返回 null（不出现在文档中）
+     */
+    private static String normalizePath(String path) {
+        if (path == null || path.isBlank()) {
+            return null;
+        }
+        String normalized = path.trim();
+        int query = normalized.indexOf('?');
+        if (query >= 0) {
+            normalized = normalized.substring(0, query);
+        }
+        return normalized.startsWith("/") ? normalized : "/" + normalized;
+    }
+
+    private static byte[] gzip(byte[] body) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(body);
+        } catch (IOException e) {
+            throw new BusinessException("OpenAPI文档压缩失败: " + e.getMessage());
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * 接口的 Operation 片段
+     */
+    @Getter
+    @AllArgsConstructor
+    private static class Operation {
+
+        private final Long interfaceId;
+        private final Long categoryId;
+        private final int sortOrder;
+        private final String method;
+
+        /**
+         * 规范化后的路径，null 表示无法出现在文档中
+         */
+        private final String path;
+
+        /**
+         * 不含 tags 的 Operation 对象
+         */
+        private final String json;
+    }
+
+    /**
+     * 生成好的 OpenAPI 文档
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class OpenApiDocument {
+
+        private final long generation;
+        private final byte[] body;
+        private final byte[] gzipBody;
+        private final String etag;
+        private final String gzipEtag;
+
+        /**
+         * 因路径无效或路径与方法重复而未输出的接口数
+         */
+        private final int skipped;
+    }
+}
@@ -0,0 +1,316 @@
+package com.example.apidemo.service;
+
+import com.example.apidemo.common.BloomFilter;
+import com.example.apidemo.common.BusinessException;
+import com.example.apidemo.entity.FileAlias;
+import com.example.apidemo.repository.FileAliasRepository;
+import com.example.apidemo.repository.VideoRepository;
+import com.example.apidemo.service.storage.StorageBackend;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 孤儿文件清理服务
+ * 分批读取 videos 表中的文件地址建立布隆过滤器，再遍历上传目录（及去重别名表），
+ * 布隆过滤器判定未被引用的文件会再查一次数据库确认，超过保留期后删除。
+ * 试运行模式只生成报告不删除
+ */
+@Service
+public class OrphanFileService {
+
+    private static final int SAMPLE_SIZE = 1000;
+
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    @Autowired
+    private StorageBackend storageBackend;
+
+    @Autowired
+    private VideoRepository videoRepository;
+
+    @Autowired
+    private FileAliasRepository aliasRepository;
+
+    /**
+     * 保留期（毫秒），新上传的文件在此期间内即使未被引用也不会删除
+     */
+    @Value("${file.sweeper.grace-period:86400000}")
+    private long gracePeriod;
+
+    /**
+     * 每秒最多检查的文件数
+     */
+    @Value("${file.sweeper.rate:500}")
+    private int sweepRate;
+
+    @Value("${file.sweeper.batch-size:1000}")
+    private int batchSize;
+
+    /**
+     * 自动清理间隔（毫秒），0 表示只通过接口手动触发
+     */
+    @Value("${file.sweeper.interval:0}")
+    private long interval;
+
+    private ScheduledExecutorService scheduler;
+
+    private volatile boolean running;
+    private volatile boolean dryRun;
+    private volatile LocalDateTime startedAt;
+    private volatile LocalDateTime finishedAt;
+    private volatile int referencedFiles;
+    private final AtomicLong scannedFiles = new AtomicLong();
+    private final AtomicLong recentFiles = new AtomicLong();
+    private final AtomicLong orphanFiles = new AtomicLong();
+    private final AtomicLong orphanBytes = new AtomicLong();
+    private final AtomicLong deletedFiles = new AtomicLong();
+    private final AtomicLong failedFiles = new AtomicLong();
+    private final List<String> orphanSamples = Collections.synchronizedList(new ArrayList<>());
+
+    private long windowStart;
+    private int windowCount;
+
+    @PostConstruct
+    public void init() {
+        if (interval > 0) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "orphan-sweeper-scheduler");
+                thread.setDaemon(true);
+                return thread;
+            });
+            scheduler.scheduleWithFixedDelay(() -> {
+                try {
+                    start(false);
+                } catch (BusinessException e) {
+                    // 上一次清理尚未结束
+                }
+            }, interval, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * 启动清理（后台执行）
+     *
+     * @param dryRun 为 true 时只统计不删除
+     */
+    public synchronized void start(boolean dryRun) {
+        if (running) {
+            throw new BusinessException("清理任务正在执行");
+        }
+        running = true;
+        this.dryRun = dryRun;
+        startedAt = LocalDateTime.now();
+        finishedAt = null;
+        referencedFiles = 0;
+        scannedFiles.set(0);
+        recentFiles.set(0);
+        orphanFiles.set(0);
+        orphanBytes.set(0);
+        deletedFiles.set(0);
+        failedFiles.set(0);
+        orphanSamples.clear();
+
+        Thread thread = new Thread(this::sweep, "orphan-sweeper");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * 清理进度与报告
+     */
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("running", running);
+        status.put("dryRun", dryRun);
+        status.put("startedAt", startedAt);
+        status.put("finishedAt", finishedAt);
+        status.put("referencedFiles", referencedFiles);
+        status.put("scannedFiles", scannedFiles.get());
+        status.put("recentFiles", recentFiles.get());
+        status.put("orphanFiles", orphanFiles.get());
+        status.put("orphanBytes", orphanBytes.get());
+        status.put("deletedFiles", deletedFiles.get());
+        status.put("failedFiles", failedFiles.get());
+        synchronized (orphanSamples) {
+            status.put("orphanSamples", new ArrayList<>(orphanSamples));
+        }
+        return status;
+    }
+
+    private void sweep() {
+        windowStart = System.currentTimeMillis();
+        windowCount = 0;
+        try {
+            BloomFilter references = loadReferences();
+            referencedFiles = references.size();
+            long cutoff = System.currentTimeMillis() - gracePeriod;
+
+            Set<Path> roots = new LinkedHashSet<>();
+            roots.add(fileStorageService.getUploadPath());
+            roots.addAll(storageBackend.getRoots());
+            for (Path root : roots) {
+                if (Files.isDirectory(root)) {
+                    Files.walkFileTree(root, new SweepVisitor(root, references, cutoff));
+                }
+            }
+            sweepAliases(references, cutoff);
+        } catch (IOException | RuntimeException e) {
+            failedFiles.incrementAndGet();
+        } finally {
+            finishedAt = LocalDateTime.now();
+            running = false;
+        }
+    }
+
+    /**
+     * 按 ID 分批读取视频的文件地址
+     */
+    private BloomFilter loadReferences() {
+        BloomFilter references = new BloomFilter(videoRepository.count() * 2, 0.001);
+        long afterId = 0;
+        while (true) {
+            List<Object[]> rows = videoRepository.findFileUrlsAfter(afterId, PageRequest.of(0, batchSize));
+            for (Object[] row : rows) {
+                afterId = (Long) row[0];
+                for (int i = 1; i < row.length; i++) {
+                    String filename = fileStorageService.extractFilename((String) row[i]);
+                    if (filename != null) {
+                        references.put(filename);
+                    }
+                }
+            }
+            if (rows.size() < batchSize) {
+                return references;
+            }
+        }
+    }
+
+    /**
+     * 去重存储的文件只存在于别名表中
+     */
+    private void sweepAliases(BloomFilter references, long cutoff) throws IOException {
+        String after = "";
+        while (true) {
+            List<FileAlias> aliases = aliasRepository.findByFilenameGreaterThanOrderByFilenameAsc(
+                    after, PageRequest.of(0, batchSize));
+            for (FileAlias alias : aliases) {
+                after = alias.getFilename();
+                long createdAt = alias.getCreatedAt() == null ? 0
+                        : alias.getCreatedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+                Path path = fileStorageService.getFilePath(after);
+                check(after, Files.exists(path) ? Files.size(path) : 0, createdAt, references, cutoff);
+            }
+            if (aliases.size() < batchSize) {
+                return;
+            }
+        }
+    }
+
+    private void check(String filename, long size, long modifiedAt, BloomFilter references, long cutoff) {
+        scannedFiles.incrementAndGet();
+        try {
+            if (modifiedAt >= cutoff) {
+                recentFiles.incrementAndGet();
+                return;
+            }
+            // 布隆过滤器没有误判为"不存在"的情况；判定未引用时再查库，排除清理期间新建的视频
+            if (references.mightContain(filename)
+                    || videoRepository.existsByVideoFileOrCoverFile(filename, filename)) {
+                return;
+            }
+            orphanFiles.incrementAndGet();
+            orphanBytes.addAndGet(size);
+            synchronized (orphanSamples) {
+                if (orphanSamples.size() < SAMPLE_SIZE) {
+                    orphanSamples.add(filename);
+                }
+            }
+            if (!dryRun) {
+                fileStorageService.deleteFile(filename);
+                deletedFiles.incrementAndGet();
+            }
+        } catch (RuntimeException e) {
+            failedFiles.incrementAndGet();
+        } finally {
+            throttle();
+        }
+    }
+
+    private void throttle() {
+        if (sweepRate <= 0 || ++windowCount < sweepRate) {
+            return;
+        }
+        long elapsed = System.currentTimeMillis() - windowStart;
+        if (elapsed < 1000) {
+            try {
+                Thread.sleep(1000 - elapsed);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        windowStart = System.currentTimeMillis();
+        windowCount = 0;
+    }
+
+    /**
+     * 遍历存储目录，跳过 .tmp/.blobs/.thumbs 等内部目录和隐藏文件
+     */
+    private class SweepVisitor extends SimpleFileVisitor<Path> {
+
+        private final Path root;
+        private final BloomFilter references;
+        private final long cutoff;
+
+        SweepVisitor(Path root, BloomFilter references, long cutoff) {
+            this.root = root;
+            this.references = references;
+            this.cutoff = cutoff;
+        }
+
+        @Override
+        public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+            if (!dir.equals(root) && dir.getFileName().toString().startsWith(".")) {
+                return FileVisitResult.SKIP_SUBTREE;
+            }
+            return FileVisitResult.CONTINUE;
+        }
+
+        @Override
+        public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+            String filename = file.getFileName().toString();
+            if (attrs.isRegularFile() && !filename.startsWith(".")) {
+                check(filename, attrs.size(), attrs.lastModifiedTime().toMillis(), references, cutoff);
+            }
+            return FileVisitResult.CONTINUE;
+        }
+
+        @Override
+        public FileVisitResult visitFileFailed(Path file, IOException exc) {
+            failedFiles.incrementAndGet();
+            return FileVisitResult.CONTINUE;
+        }
+    }
+}
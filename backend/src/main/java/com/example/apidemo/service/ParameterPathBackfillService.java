@@ -0,0 +1,211 @@
+package com.example.apidemo.service;
+
+import com.example.apidemo.common.BusinessException;
+import com.example.apidemo.repository.ApiParameterJdbcRepository;
+import com.example.apidemo.repository.ApiParameterJdbcRepository.ParameterRow;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 参数物化路径回填服务
+ * 新增 path 列之前保存的参数没有路径，后台按接口逐个补写（每个接口一个事务）；
+ * 子树操作遇到未回填的接口时也会先同步回填该接口
+ */
+@Service
+public class ParameterPathBackfillService {
+
+    @Autowired
+    private ApiParameterJdbcRepository parameterJdbcRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /**
+     * 每批查询的接口数
+     */
+    @Value("${parameter-path.backfill.batch-size:100}")
+    private int batchSize;
+
+    /**
+     * 每秒最多回填的接口数，0 表示不限
+     */
+    @Value("${parameter-path.backfill.rate:50}")
+    private int backfillRate;
+
+    @Value("${parameter-path.backfill.on-startup:true}")
+    private boolean onStartup;
+
+    private TransactionTemplate transactionTemplate;
+
+    private volatile boolean running;
+    private volatile LocalDateTime startedAt;
+    private volatile LocalDateTime finishedAt;
+    private final AtomicLong interfaces = new AtomicLong();
+    private final AtomicLong filledRows = new AtomicLong();
+    private final AtomicLong failedInterfaces = new AtomicLong();
+
+    private long windowStart;
+    private int windowCount;
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (onStartup && !parameterJdbcRepository.findInterfaceIdsWithoutPath(0, 1).isEmpty()) {
+            start();
+        }
+    }
+
+    /**
+     * 启动回填（后台执行）
+     */
+    public synchronized void start() {
+        if (running) {
+            throw new BusinessException("回填任务正在执行");
+        }
+        running = true;
+        startedAt = LocalDateTime.now();
+        finishedAt = null;
+        interfaces.set(0);
+        filledRows.set(0);
+        failedInterfaces.set(0);
+
+        Thread thread = new Thread(this::backfillAll, "parameter-path-backfill");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * 回填进度
+     */
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("running", running);
+        status.put("startedAt", startedAt);
+        status.put("finishedAt", finishedAt);
+        status.put("interfaces", interfaces.get());
+        status.put("filledRows", filledRows.get());
+        status.put("failedInterfaces", failedInterfaces.get());
+        return status;
+    }
+
+    /**
+     * 回填一个接口的参数路径（加入当前事务，没有时新开事务）
+     *
+     * @return 补写的行数
+     */
+    public int backfill(Long interfaceId) {
+        Integer filled = transactionTemplate.execute(tx -> {
+            List<ParameterRow> rows = parameterJdbcRepository.findByInterfaceId(interfaceId);
+            Map<Long, ParameterRow> byId = new HashMap<>(rows.size() * 2);
+            rows.forEach(row -> byId.put(row.getId(), row));
+
+            Map<Long, String> paths = new HashMap<>(rows.size() * 2);
+            List<ParameterRow> updates = new ArrayList<>();
+            for (ParameterRow row : rows) {
+                String path = resolvePath(row, byId, paths);
+                // 父参数不存在（孤儿）或路径超长的参数保持为空
+                if (path != null && !path.equals(row.getPath())) {
+                    row.setPath(path);
+                    updates.add(row);
+                }
+            }
+            return parameterJdbcRepository.batchFillPaths(updates);
+        });
+        return filled != null ? filled : 0;
+    }
+
+    /**
+     * 沿父参数链计算路径，已有路径的祖先直接使用；父参数不存在（孤儿）或路径超长时返回 null
+     */
+    private String resolvePath(ParameterRow row, Map<Long, ParameterRow> byId, Map<Long, String> paths) {
+        Deque<ParameterRow> chain = new ArrayDeque<>();
+        String path = null;
+        ParameterRow current = row;
+        while (current != null) {
+            String known = paths.get(current.getId());
+            if (known == null && current.getPath() != null) {
+                known = current.getPath();
+            }
+            if (known != null) {
+                path = known;
+                break;
+            }
+            chain.push(current);
+            if (current.getParentId() == null) {
+                break;
+            }
+            current = byId.get(current.getParentId());
+            if (current == null || chain.size() > byId.size()) {
+                return null;
+            }
+        }
+        while (!chain.isEmpty()) {
+            ParameterRow next = chain.pop();
+            path = ApiParameterJdbcRepository.childPath(path, next.getId());
+            if (path.length() > ApiParameterJdbcRepository.MAX_PATH_LENGTH) {
+                return null;
+            }
+            paths.put(next.getId(), path);
+        }
+        return path;
+    }
+
+    private void backfillAll() {
+        windowStart = System.currentTimeMillis();
+        windowCount = 0;
+        try {
+            long afterId = 0;
+            while (true) {
+                List<Long> interfaceIds = parameterJdbcRepository.findInterfaceIdsWithoutPath(afterId, batchSize);
+                for (Long interfaceId : interfaceIds) {
+                    afterId = interfaceId;
+                    try {
+                        filledRows.addAndGet(backfill(interfaceId));
+                        interfaces.incrementAndGet();
+                    } catch (RuntimeException e) {
+                        failedInterfaces.incrementAndGet();
+                    }
+                    throttle();
+                }
+                if (interfaceIds.size() < batchSize) {
+                    break;
+                }
+            }
+        } catch (RuntimeException e) {
+            failedInterfaces.incrementAndGet();
+        } finally {
+            finishedAt = LocalDateTime.now();
+            running = false;
+        }
+    }
+
+    private void throttle() {
+        if (backfillRate <= 0 || ++windowCount < backfillRate) {
+            return;
+        }
+        long elapsed = System.currentTimeMillis() - windowStart;
+        if (elapsed < 1000) {
+            try {
+                Thread.sleep(1000 - elapsed);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        windowStart = System.currentTimeMillis();
+        windowCount = 0;
+    }
+}
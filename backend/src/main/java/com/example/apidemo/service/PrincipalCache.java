@@ -0,0 +1,108 @@
+package com.example.apidemo.service;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Service;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * 已认证用户缓存
+ * Token 校验通过后按用户名缓存 UserDetails，避免每个请求都查询用户表。
+ * 条目超过有效期后重新加载，用户信息变更时需调用 {@link #invalidate(String)}
+ */
+@Service
+public class PrincipalCache {
+
+    @Value("${jwt.principal-cache.max-size:10000}")
+    private int maxSize;
+
+    /**
+     * 缓存有效期（毫秒）
+     */
+    @Value("${jwt.principal-cache.ttl:60000}")
+    private long ttl;
+
+    private Map<String, CachedPrincipal> entries;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    /**
+     * 每次失效加一；加载期间发生过失效时不缓存加载结果，避免把失效前读到的旧数据放回缓存
+     */
+    private final AtomicLong epoch = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        entries = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedPrincipal> eldest) {
+                return size() > maxSize;
+            }
+        });
+    }
+
+    /**
+     * 获取用户，未命中或已过期时通过 loader 加载
+     */
+    public UserDetails get(String username, Function<String, UserDetails> loader) {
+        long now = System.currentTimeMillis();
+        CachedPrincipal cached = entries.get(username);
+        if (cached != null && cached.expiresAt > now) {
+            hits.incrementAndGet();
+            return cached.userDetails;
+        }
+        misses.incrementAndGet();
+        long loadEpoch = epoch.get();
+        UserDetails userDetails = loader.apply(username);
+        if (ttl > 0 && maxSize > 0 && epoch.get() == loadEpoch) {
+            entries.put(username, new CachedPrincipal(userDetails, now + ttl));
+        }
+        return userDetails;
+    }
+
+    /**
+     * 用户信息变更（改密码、禁用、删除等）后使缓存失效
+     */
+    public void invalidate(String username) {
+        epoch.incrementAndGet();
+        if (entries.remove(username) != null) {
+            invalidations.incrementAndGet();
+        }
+    }
+
+    /**
+     * 缓存统计，misses 即用户表查询次数
+     */
+    public Map<String, Object> getStats() {
+        long hitCount = hits.get();
+        long missCount = misses.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("entries", entries.size());
+        stats.put("maxSize", maxSize);
+        stats.put("ttl", ttl);
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hitRate", hitCount + missCount == 0 ? 0 : (double) hitCount / (hitCount + missCount));
+        stats.put("invalidations", invalidations.get());
+        return stats;
+    }
+
+    private static class CachedPrincipal {
+
+        private final UserDetails userDetails;
+        private final long expiresAt;
+
+        CachedPrincipal(UserDetails userDetails, long expiresAt) {
+            this.userDetails = userDetails;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
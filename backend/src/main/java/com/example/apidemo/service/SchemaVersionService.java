@@ -0,0 +1,417 @@
+package com.example.apidemo.service;
+
+import com.example.apidemo.common.BusinessException;
+import com.example.apidemo.entity.ApiParameter;
+import com.example.apidemo.entity.SchemaNode;
+import com.example.apidemo.entity.SchemaVersion;
+import com.example.apidemo.repository.ApiParameterJdbcRepository.ParameterRow;
+import com.example.apidemo.repository.SchemaNodeJdbcRepository;
+import com.example.apidemo.repository.SchemaVersionRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/**
+ * 参数结构版本服务
+ * 参数树保存为按内容寻址的节点（哈希 = 属性 + 有序子节点哈希），版本只记录根节点哈希，
+ * 未变化的子树与之前的版本共用同一批节点。
+ * 保存时自上而下逐层检查节点是否已存在，已存在的节点其整棵子树必然已存在，不再向下检查；
+ * 比较两个版本时同样逐层展开，哈希相同的子树直接跳过，开销与变化的节点数成正比
+ */
+@Service
+public class SchemaVersionService {
+
+    private static final String ROOT_TYPE = "root";
+
+    private static final int HASH_LENGTH = 64;
+
+    @Autowired
+    private SchemaVersionRepository versionRepository;
+
+    @Autowired
+    private SchemaNodeJdbcRepository nodeRepository;
+
+    /**
+     * 节点缓存大小（节点写入后不变，可以放心缓存）
+     */
+    @Value("${schema-version.node-cache-size:100000}")
+    private int nodeCacheSize;
+
+    private Map<String, SchemaNode> nodeCache;
+
+    @PostConstruct
+    public void init() {
+        nodeCache = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, SchemaNode> eldest) {
+                return size() > nodeCacheSize;
+            }
+        });
+        nodeRepository.widenChildrenColumn();
+    }
+
+    /**
+     * 记录参数树为接口的新版本，与最新版本相同时不记录；须在保存参数的事务中、锁定接口行之后调用，
+     * 并发保存同一接口时依次计算版本号，不会取到相同的 version + 1。
+     * 接口还没有任何版本时，先把保存前的参数树记为基线版本
+     *
+     * @param previous 保存前的参数行
+     * @param current  保存后的参数行（需带 id、parentId、sortOrder）
+     */
+    public void record(Long interfaceId, List<ParameterRow> previous, List<ParameterRow> current) {
+        Optional<SchemaVersion> latest = versionRepository.findFirstByInterfaceIdOrderByVersionDesc(interfaceId);
+        int version = latest.map(SchemaVersion::getVersion).orElse(0);
+        String latestHash = latest.map(SchemaVersion::getRootHash).orElse(null);
+
+        if (latest.isEmpty() && !previous.isEmpty()) {
+            latestHash = saveVersion(interfaceId, ++version, previous);
+        }
+        Map<String, SchemaNode> nodes = new HashMap<>();
+        String rootHash = hashTree(current, nodes);
+        if (!rootHash.equals(latestHash)) {
+            persistNodes(rootHash, nodes);
+            versionRepository.save(new SchemaVersion(null, interfaceId, version + 1, rootHash, current.size(), null));
+        }
+    }
+
+    /**
+     * 接口的版本列表（新版本在前）
+     */
+    public List<SchemaVersion> listVersions(Long interfaceId) {
+        return versionRepository.findByInterfaceIdOrderByVersionDesc(interfaceId);
+    }
+
+    /**
+     * 获取某个版本的参数树
+     */
+    public List<ApiParameter> getTree(Long interfaceId, int version) {
+        SchemaVersion schemaVersion = findVersion(interfaceId, version);
+
+        // 逐层批量加载节点
+        Map<String, SchemaNode> loaded = new HashMap<>();
+        Set<String> level = Set.of(schemaVersion.getRootHash());
+        while (!level.isEmpty()) {
+            Map<String, SchemaNode> found = loadNodes(level);
+            loaded.putAll(found);
+            Set<String> next = new LinkedHashSet<>();
+            for (SchemaNode node : found.values()) {
+                for (String child : childHashes(node)) {
+                    if (!loaded.containsKey(child)) {
+                        next.add(child);
+                    }
+                }
+            }
+            level = next;
+        }
+
+        SchemaNode root = loaded.get(schemaVersion.getRootHash());
+        if (root == null) {
+            throw new BusinessException("版本数据不完整");
+        }
+        return toParameters(root, loaded);
+    }
+
+    /**
+     * 比较两个版本，返回从 from 到 to 的变更
+     */
+    public List<SchemaChange> diff(Long interfaceId, int from, int to) {
+        String fromHash = findVersion(interfaceId, from).getRootHash();
+        String toHash = findVersion(interfaceId, to).getRootHash();
+        List<SchemaChange> changes = new ArrayList<>();
+        if (fromHash.equals(toHash)) {
+            return changes;
+        }
+
+        Map<String, SchemaNode> roots = loadNodes(Set.of(fromHash, toHash));
+        List<NodePair> level = List.of(new NodePair("", roots.get(fromHash), roots.get(toHash)));
+        while (!level.isEmpty()) {
+            Set<String> needed = new HashSet<>();
+            for (NodePair pair : level) {
+                needed.addAll(childHashes(pair.before));
+                needed.addAll(childHashes(pair.after));
+            }
+            Map<String, SchemaNode> children = loadNodes(needed);
+
+            List<NodePair> next = new ArrayList<>();
+            for (NodePair pair : level) {
+                diffChildren(pair, children, changes, next);
+            }
+            level = next;
+        }
+        return changes;
+    }
+
+    /**
+     * 同级参数按名称对应（同名参数按出现顺序），对应上且哈希不同的继续比较子参数
+     */
+    private void diffChildren(NodePair pair, Map<String, SchemaNode> nodes,
+            List<SchemaChange> changes, List<NodePair> next) {
+        Map<String, Deque<SchemaNode>> beforeByName = new LinkedHashMap<>();
+        for (String hash : childHashes(pair.before)) {
+            SchemaNode node = nodes.get(hash);
+            beforeByName.computeIfAbsent(node.getName(), name -> new ArrayDeque<>()).add(node);
+        }
+
+        for (String hash : childHashes(pair.after)) {
+            SchemaNode after = nodes.get(hash);
+            String path = pair.path.isEmpty() ? after.getName() : pair.path + "." + after.getName();
+            Deque<SchemaNode> candidates = beforeByName.get(after.getName());
+            SchemaNode before = candidates != null ? candidates.poll() : null;
+            if (before == null) {
+                changes.add(new SchemaChange(path, "added", null, attributes(after)));
+            } else if (!before.getHash().equals(after.getHash())) {
+                if (!sameAttributes(before, after)) {
+                    changes.add(new SchemaChange(path, "modified", attributes(before), attributes(after)));
+                }
+                if (!Objects.equals(before.getChildren(), after.getChildren())) {
+                    next.add(new NodePair(path, before, after));
+                }
+            }
+        }
+
+        for (Deque<SchemaNode> remaining : beforeByName.values()) {
+            for (SchemaNode before : remaining) {
+                String path = pair.path.isEmpty() ? before.getName() : pair.path + "." + before.getName();
+                changes.add(new SchemaChange(path, "removed", attributes(before), null));
+            }
+        }
+    }
+
+    /**
+     * 将版本的参数树转换为保存参数所用的数据格式（不带 id，按名称对应已有参数）
+     */
+    public List<Map<String, Object>> toParameterData(List<ApiParameter> parameters) {
+        List<Map<String, Object>> data = new ArrayList<>(parameters.size());
+        for (ApiParameter param : parameters) {
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("name", param.getName());
+            item.put("type", param.getType());
+            item.put("required", param.getRequired());
+            item.put("description", param.getDescription());
+            item.put("exampleValue", param.getExampleValue());
+            item.put("children", toParameterData(param.getChildren()));
+            data.add(item);
+        }
+        return data;
+    }
+
+    private String saveVersion(Long interfaceId, int version, List<ParameterRow> rows) {
+        Map<String, SchemaNode> nodes = new HashMap<>();
+        String rootHash = hashTree(rows, nodes);
+        persistNodes(rootHash, nodes);
+        versionRepository.save(new SchemaVersion(null, interfaceId, version, rootHash, rows.size(), null));
+        return rootHash;
+    }
+
+    private SchemaVersion findVersion(Long interfaceId, int version) {
+        return versionRepository.findByInterfaceIdAndVersion(interfaceId, version)
+                .orElseThrow(() -> new BusinessException("版本不存在: " + version));
+    }
+
+    /**
+     * 计算参数树各节点的哈希
+     *
+     * @param nodes 输出：哈希 -> 节点
+     * @return 根节点哈希
+     */
+    private String hashTree(List<ParameterRow> rows, Map<String, SchemaNode> nodes) {
+        Map<Long, List<ParameterRow>> childrenByParent = new HashMap<>();
+        for (ParameterRow row : rows) {
+            childrenByParent.computeIfAbsent(row.getParentId(), id -> new ArrayList<>()).add(row);
+        }
+        Comparator<ParameterRow> order = Comparator.comparingInt(ParameterRow::getSortOrder)
+                .thenComparing(ParameterRow::getId);
+        childrenByParent.values().forEach(children -> children.sort(order));
+
+        StringBuilder rootChildren = new StringBuilder();
+        for (ParameterRow row : childrenByParent.getOrDefault(null, List.of())) {
+            rootChildren.append(hashRow(row, childrenByParent, nodes));
+        }
+        return addNode(new SchemaNode(null, null, ROOT_TYPE, false, null, null, rootChildren.toString()), nodes);
+    }
+
+    private String hashRow(ParameterRow row, Map<Long, List<ParameterRow>> childrenByParent,
+            Map<String, SchemaNode> nodes) {
+        StringBuilder children = new StringBuilder();
+        for (ParameterRow child : childrenByParent.getOrDefault(row.getId(), List.of())) {
+            children.append(hashRow(child, childrenByParent, nodes));
+        }
+        return addNode(new SchemaNode(null, row.getName(), row.getType(), row.isRequired(),
+                row.getDescription(), row.getExampleValue(), children.toString()), nodes);
+    }
+
+    private String addNode(SchemaNode node, Map<String, SchemaNode> nodes) {
+        // 超出列长度时 INSERT IGNORE 会静默截断，这里直接拒绝
+        if (node.getChildren().length() > SchemaNodeJdbcRepository.MAX_CHILDREN_LENGTH) {
+            throw new BusinessException("同一层级的参数过多");
+        }
+        node.setHash(hash(node));
+        nodes.putIfAbsent(node.getHash(), node);
+        return node.getHash();
+    }
+
+    /**
+     * 自上而下逐层找出数据库中还没有的节点并写入
+     */
+    private void persistNodes(String rootHash, Map<String, SchemaNode> nodes) {
+        List<SchemaNode> missing = new ArrayList<>();
+        Set<String> level = Set.of(rootHash);
+        while (!level.isEmpty()) {
+            Map<String, SchemaNode> existing = loadNodes(level);
+            Set<String> next = new LinkedHashSet<>();
+            for (String hash : level) {
+                if (!existing.containsKey(hash)) {
+                    SchemaNode node = nodes.get(hash);
+                    missing.add(node);
+                    next.addAll(childHashes(node));
+                }
+            }
+            level = next;
+        }
+        nodeRepository.batchInsert(missing);
+    }
+
+    /**
+     * 按哈希加载节点，先查缓存
+     */
+    private Map<String, SchemaNode> loadNodes(Collection<String> hashes) {
+        Map<String, SchemaNode> found = new HashMap<>(hashes.size() * 2);
+        List<String> misses = new ArrayList<>();
+        for (String hash : hashes) {
+            SchemaNode node = nodeCache.get(hash);
+            if (node != null) {
+                found.put(hash, node);
+            } else {
+                misses.add(hash);
+            }
+        }
+        for (SchemaNode node : nodeRepository.findByHashes(misses)) {
+            nodeCache.put(node.getHash(), node);
+            found.put(node.getHash(), node);
+        }
+        return found;
+    }
+
+    private List<ApiParameter> toParameters(SchemaNode node, Map<String, SchemaNode> nodes) {
+        List<String> children = childHashes(node);
+        List<ApiParameter> parameters = new ArrayList<>(children.size());
+        int sortOrder = 0;
+        for (String hash : children) {
+            SchemaNode child = nodes.get(hash);
+            ApiParameter param = new ApiParameter();
+            param.setName(child.getName());
+            param.setType(child.getType());
+            param.setRequired(child.getRequired());
+            param.setDescription(child.getDescription());
+            param.setExampleValue(child.getExampleValue());
+            param.setSortOrder(sortOrder++);
+            param.setChildren(toParameters(child, nodes));
+            parameters.add(param);
+        }
+        return parameters;
+    }
+
+    private static List<String> childHashes(SchemaNode node) {
+        String children = node.getChildren();
+        if (children == null || children.isEmpty()) {
+            return List.of();
+        }
+        List<String> hashes = new ArrayList<>(children.length() / HASH_LENGTH);
+        for (int i = 0; i + HASH_LENGTH <= children.length(); i += HASH_LENGTH) {
+            hashes.add(children.substring(i, i + HASH_LENGTH));
+        }
+        return hashes;
+    }
+
+    private static boolean sameAttributes(SchemaNode a, SchemaNode b) {
+        return Objects.equals(a.getType(), b.getType())
+                && Objects.equals(a.getRequired(), b.getRequired())
+                && Objects.equals(a.getDescription(), b.getDescription())
+                && Objects.equals(a.getExampleValue(), b.getExampleValue());
+    }
+
+    private static Map<String, Object> attributes(SchemaNode node) {
+        Map<String, Object> attributes = new LinkedHashMap<>();
+        attributes.put("type", node.getType());
+        attributes.put("required", node.getRequired());
+        attributes.put("description", node.getDescription());
+        attributes.put("exampleValue", node.getExampleValue());
+        attributes.put("children", childHashes(node).size());
+        return attributes;
+    }
+
+    /**
+     * SHA-256(各属性按 长度 + UTF-8 编码依次写入，null 写 -1；最后是子节点哈希)
+     */
+    private static String hash(SchemaNode node) {
+        try {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream(128 + node.getChildren().length());
+            DataOutputStream out = new DataOutputStream(buffer);
+            writeField(out, node.getName());
+            writeField(out, node.getType());
+            out.writeBoolean(Boolean.TRUE.equals(node.getRequired()));
+            writeField(out, node.getDescription());
+            writeField(out, node.getExampleValue());
+            writeField(out, node.getChildren());
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(buffer.toByteArray()));
+        } catch (IOException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void writeField(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static class NodePair {
+
+        private final String path;
+        private final SchemaNode before;
+        private final SchemaNode after;
+
+        NodePair(String path, SchemaNode before, SchemaNode after) {
+            this.path = path;
+            this.before = before;
+            this.after = after;
+        }
+    }
+
+    /**
+     * 版本间的变更
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class SchemaChange {
+
+        /**
+         * 参数路径，如 user.address.city
+         */
+        private final String path;
+
+        /**
+         * added / removed / modified
+         */
+        private final String change;
+
+        private final Map<String, Object> before;
+        private final Map<String, Object> after;
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.apidemo.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Map;
+
+/**
+ * 排序变更事件（接口/栏目批量排序、接口批量移动栏目）
+ * 一次批量操作只发布一个事件；接口定义和参数没有变化，监听方只需更新排序号和栏目，不必重新读取参数
+ */
+@Getter
+@AllArgsConstructor
+public class SortOrderChangedEvent {
+
+    /**
+     * 改写了排序号的接口ID -> 新排序号
+     */
+    private final Map<Long, Integer> interfaceOrders;
+
+    /**
+     * interfaceOrders 中的接口是否都已移到 categoryId 栏目
+     */
+    private final boolean moved;
+
+    /**
+     * 接口所在的新栏目（null 表示移出栏目），仅 moved 时有意义
+     */
+    private final Long categoryId;
+
+    /**
+     * 改写了排序号的栏目ID -> 新排序号
+     */
+    private final Map<Long, Integer> categoryOrders;
+
+    public static SortOrderChangedEvent interfacesReordered(Map<Long, Integer> orders) {
+        return new SortOrderChangedEvent(orders, false, null, Map.of());
+    }
+
+    public static SortOrderChangedEvent interfacesMoved(Long categoryId, Map<Long, Integer> orders) {
+        return new SortOrderChangedEvent(orders, true, categoryId, Map.of());
+    }
+
+    public static SortOrderChangedEvent categoriesReordered(Map<Long, Integer> orders) {
+        return new SortOrderChangedEvent(Map.of(), false, null, orders);
+    }
+}
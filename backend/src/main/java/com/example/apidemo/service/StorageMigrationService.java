@@ -0,0 +1,199 @@
+package com.example.apidemo.service;
+
+import com.example.apidemo.common.BusinessException;
+import com.example.apidemo.service.storage.StorageBackend;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 存储迁移服务
+ * 在线把文件移动到当前存储后端指定的位置（平铺目录 -> 分片目录、多卷扩容后的再平衡）
+ * 迁移期间 {@link FileStorageService#getFilePath(String)} 会同时查找新旧位置，服务不中断
+ */
+@Service
+public class StorageMigrationService {
+
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    @Autowired
+    private StorageBackend storageBackend;
+
+    /**
+     * 每秒最多迁移的文件数，避免迁移占满磁盘 I/O
+     */
+    @Value("${file.storage.migration-rate:200}")
+    private int migrationRate;
+
+    private volatile boolean running;
+    private volatile LocalDateTime startedAt;
+    private volatile LocalDateTime finishedAt;
+    private final AtomicLong scannedFiles = new AtomicLong();
+    private final AtomicLong movedFiles = new AtomicLong();
+    private final AtomicLong failedFiles = new AtomicLong();
+
+    private long windowStart;
+    private int windowCount;
+
+    /**
+     * 启动迁移（后台执行）
+     */
+    public synchronized void start() {
+        if (running) {
+            throw new BusinessException("迁移任务正在执行");
+        }
+        running = true;
+        startedAt = LocalDateTime.now();
+        finishedAt = null;
+        scannedFiles.set(0);
+        movedFiles.set(0);
+        failedFiles.set(0);
+
+        Thread thread = new Thread(this::migrate, "storage-migration");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * 迁移进度
+     */
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("running", running);
+        status.put("startedAt", startedAt);
+        status.put("finishedAt", finishedAt);
+        status.put("scannedFiles", scannedFiles.get());
+        status.put("movedFiles", movedFiles.get());
+        status.put("failedFiles", failedFiles.get());
+        return status;
+    }
+
+    private void migrate() {
+        windowStart = System.currentTimeMillis();
+        windowCount = 0;
+        try {
+            Set<Path> roots = new LinkedHashSet<>();
+            roots.add(fileStorageService.getUploadPath());
+            roots.addAll(storageBackend.getRoots());
+            for (Path root : roots) {
+                if (Files.isDirectory(root)) {
+                    Files.walkFileTree(root, new MigrationVisitor(root));
+                }
+            }
+        } catch (IOException e) {
+            failedFiles.incrementAndGet();
+        } finally {
+            finishedAt = LocalDateTime.now();
+            running = false;
+        }
+    }
+
+    private void migrateFile(Path source) {
+        String filename = source.getFileName().toString();
+        Path target = storageBackend.resolve(filename);
+        if (target.equals(source)) {
+            return;
+        }
+
+        try {
+            Files.createDirectories(target.getParent());
+            if (Files.exists(target)) {
+                // 上次迁移中断留下的副本
+                if (Files.size(target) != Files.size(source)) {
+                    failedFiles.incrementAndGet();
+                    return;
+                }
+            } else {
+                copyOrLink(source, target);
+            }
+            // 先让缓存指向新位置，再删除旧文件
+            fileStorageService.evictMetadata(filename);
+            Files.delete(source);
+            movedFiles.incrementAndGet();
+        } catch (IOException e) {
+            failedFiles.incrementAndGet();
+        }
+        throttle();
+    }
+
+    /**
+     * 同一文件系统内建立硬链接（新旧位置同时可见），跨卷时复制到临时文件后原子改名
+     */
+    private void copyOrLink(Path source, Path target) throws IOException {
+        try {
+            Files.createLink(target, source);
+            return;
+        } catch (UnsupportedOperationException | IOException e) {
+            // 跨文件系统，退化为复制
+        }
+        Path temp = target.resolveSibling("." + target.getFileName() + ".migrating");
+        try {
+            Files.copy(source, temp, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.COPY_ATTRIBUTES);
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private void throttle() {
+        if (migrationRate <= 0 || ++windowCount < migrationRate) {
+            return;
+        }
+        long elapsed = System.currentTimeMillis() - windowStart;
+        if (elapsed < 1000) {
+            try {
+                Thread.sleep(1000 - elapsed);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        windowStart = System.currentTimeMillis();
+        windowCount = 0;
+    }
+
+    /**
+     * 遍历存储目录，跳过 .tmp/.blobs/.thumbs 等内部目录和隐藏文件
+     */
+    private class MigrationVisitor extends SimpleFileVisitor<Path> {
+
+        private final Path root;
+
+        MigrationVisitor(Path root) {
+            this.root = root;
+        }
+
+        @Override
+        public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+            if (!dir.equals(root) && dir.getFileName().toString().startsWith(".")) {
+                return FileVisitResult.SKIP_SUBTREE;
+            }
+            return FileVisitResult.CONTINUE;
+        }
+
+        @Override
+        public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+            if (attrs.isRegularFile() && !file.getFileName().toString().startsWith(".")) {
+                scannedFiles.incrementAndGet();
+                migrateFile(file);
+            }
+            return FileVisitResult.CONTINUE;
+        }
+
+        @Override
+        public FileVisitResult visitFileFailed(Path file, IOException exc) {
+            failedFiles.incrementAndGet();
+            return FileVisitResult.CONTINUE;
+        }
+    }
+}
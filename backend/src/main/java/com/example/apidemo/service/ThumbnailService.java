@@ -0,0 +1,297 @@
+package com.example.apidemo.service;
+
+import com.example.apidemo.common.BusinessException;
+import com.example.apidemo.service.FileStorageService.FileMetadata;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 缩略图服务
+ * 图片上传后在后台线程池中生成固定尺寸的缩略图，生成完成前访问缩略图返回原图
+ */
+@Service
+public class ThumbnailService {
+
+    private static final Set<String> SUPPORTED_EXTENSIONS = Set.of("jpg", "jpeg", "png");
+
+    private static final int RECENT_JOBS_SIZE = 100;
+
+    /**
+     * 超过该像素数的图片不解码，避免撑爆堆内存
+     */
+    private static final long MAX_PIXELS = 40_000_000L;
+
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    @Autowired
+    private HotFileCache hotFileCache;
+
+    /**
+     * 缩略图宽度（像素），高度按比例缩放
+     */
+    @Value("${file.thumbnail.sizes:160,320,640}")
+    private List<Integer> sizes;
+
+    @Value("${file.thumbnail.workers:2}")
+    private int workers;
+
+    @Value("${file.thumbnail.queue-capacity:1000}")
+    private int queueCapacity;
+
+    private ThreadPoolExecutor executor;
+
+    /**
+     * 已生成的缩略图（只缓存存在的结果）
+     */
+    private final Set<String> readyDerivatives = ConcurrentHashMap.newKeySet();
+
+    private final AtomicLong completedJobs = new AtomicLong();
+    private final AtomicLong failedJobs = new AtomicLong();
+    private final AtomicLong rejectedJobs = new AtomicLong();
+    private final AtomicLong totalProcessMillis = new AtomicLong();
+
+    /**
+     * 最近任务耗时记录
+     */
+    private final Deque<Map<String, Object>> recentJobs = new ArrayDeque<>();
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadIndex = new AtomicInteger();
+        executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "thumbnail-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 是否需要生成缩略图
+     */
+    public boolean supports(String filename) {
+        return SUPPORTED_EXTENSIONS.contains(extension(filename));
+    }
+
+    /**
+     * 提交缩略图生成任务，队列已满时放弃（访问时回退到原图）
+     */
+    public void submit(String filename) {
+        if (!supports(filename)) {
+            return;
+        }
+        long submittedAt = System.currentTimeMillis();
+        try {
+            executor.execute(() -> generate(filename, submittedAt));
+        } catch (RejectedExecutionException e) {
+            rejectedJobs.incrementAndGet();
+        }
+    }
+
+    /**
+     * 获取缩略图元数据
+     *
+     * @return 缩略图尚未生成时返回 null
+     */
+    public FileMetadata getDerivative(String filename, int size) {
+        if (!sizes.contains(size)) {
+            throw new BusinessException("不支持的缩略图尺寸: " + size);
+        }
+        String key = derivativeKey(filename, size);
+        if (!readyDerivatives.contains(key)) {
+            if (!Files.isRegularFile(fileStorageService.getInternalPath(key))) {
+                return null;
+            }
+            readyDerivatives.add(key);
+        }
+        return fileStorageService.getFileMetadata(key);
+    }
+
+    /**
+     * 删除文件的所有缩略图
+     */
+    public void deleteDerivatives(String filename) {
+        if (!supports(filename)) {
+            return;
+        }
+        for (Integer size : sizes) {
+            String key = derivativeKey(filename, size);
+            readyDerivatives.remove(key);
+            fileStorageService.evictMetadata(key);
+            Path path = fileStorageService.getInternalPath(key);
+            hotFileCache.invalidate(path);
+            try {
+                Files.deleteIfExists(path);
+            } catch (IOException e) {
+                // 缩略图删除失败不影响主流程
+            }
+        }
+    }
+
+    /**
+     * 队列与任务统计
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        long completed = completedJobs.get();
+        stats.put("queueDepth", executor.getQueue().size());
+        stats.put("activeJobs", executor.getActiveCount());
+        stats.put("completedJobs", completed);
+        stats.put("failedJobs", failedJobs.get());
+        stats.put("rejectedJobs", rejectedJobs.get());
+        stats.put("avgProcessMillis", completed == 0 ? 0 : totalProcessMillis.get() / completed);
+        synchronized (recentJobs) {
+            stats.put("recentJobs", new ArrayList<>(recentJobs));
+        }
+        return stats;
+    }
+
+    private void generate(String filename, long submittedAt) {
+        long startedAt = System.currentTimeMillis();
+        boolean success = false;
+        try {
+            BufferedImage source = readImage(fileStorageService.getFilePath(filename));
+            String format = "png".equals(extension(filename)) ? "png" : "jpg";
+            for (Integer size : sizes) {
+                writeDerivative(source, format, filename, size);
+            }
+            success = true;
+        } catch (Exception e) {
+            // 生成失败时继续返回原图
+        } finally {
+            long finishedAt = System.currentTimeMillis();
+            recordJob(filename, startedAt - submittedAt, finishedAt - startedAt, success);
+        }
+    }
+
+    private BufferedImage readImage(Path path) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(path.toFile())) {
+            Iterator<ImageReader> readers = input != null
+                    ? ImageIO.getImageReaders(input) : Collections.emptyIterator();
+            if (!readers.hasNext()) {
+                throw new IOException("无法解析图片");
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                if ((long) reader.getWidth(0) * reader.getHeight(0) > MAX_PIXELS) {
+                    throw new IOException("图片尺寸过大");
+                }
+                return reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private void writeDerivative(BufferedImage source, String format, String filename, int width)
+            throws IOException {
+        BufferedImage image = resize(source, width, "jpg".equals(format));
+
+        // 先写临时文件再移动，避免读到写了一半的缩略图
+        Path temp = Files.createTempFile(fileStorageService.getTempPath(), "thumb-", "." + format);
+        try {
+            if (!ImageIO.write(image, format, temp.toFile())) {
+                throw new IOException("不支持的图片格式: " + format);
+            }
+            String key = derivativeKey(filename, width);
+            Path target = fileStorageService.getInternalPath(key);
+            Files.createDirectories(target.getParent());
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            readyDerivatives.add(key);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * 按宽度等比缩放，缩小倍数较大时逐次减半以保证质量
+     */
+    private BufferedImage resize(BufferedImage source, int targetWidth, boolean opaque) {
+        int imageType = opaque ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB;
+        int width = source.getWidth();
+        int height = source.getHeight();
+        targetWidth = Math.min(targetWidth, width);
+        int targetHeight = Math.max(1, (int) Math.round((double) height * targetWidth / width));
+
+        BufferedImage current = source;
+        do {
+            width = Math.max(targetWidth, width / 2);
+            height = width == targetWidth ? targetHeight : Math.max(targetHeight, height / 2);
+
+            BufferedImage scaled = new BufferedImage(width, height, imageType);
+            Graphics2D g = scaled.createGraphics();
+            try {
+                if (opaque) {
+                    g.setColor(Color.WHITE);
+                    g.fillRect(0, 0, width, height);
+                }
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                g.drawImage(current, 0, 0, width, height, null);
+            } finally {
+                g.dispose();
+            }
+            current = scaled;
+        } while (width != targetWidth);
+
+        return current;
+    }
+
+    private void recordJob(String filename, long queueMillis, long processMillis, boolean success) {
+        if (success) {
+            completedJobs.incrementAndGet();
+            totalProcessMillis.addAndGet(processMillis);
+        } else {
+            failedJobs.incrementAndGet();
+        }
+
+        Map<String, Object> job = new LinkedHashMap<>();
+        job.put("filename", filename);
+        job.put("queueMillis", queueMillis);
+        job.put("processMillis", processMillis);
+        job.put("success", success);
+        synchronized (recentJobs) {
+            recentJobs.addFirst(job);
+            if (recentJobs.size() > RECENT_JOBS_SIZE) {
+                recentJobs.removeLast();
+            }
+        }
+    }
+
+    /**
+     * 缩略图存储位置：.thumbs/宽度/原文件名
+     */
+    private String derivativeKey(String filename, int size) {
+        return ".thumbs/" + size + "/" + filename;
+    }
+
+    private String extension(String filename) {
+        return filename.substring(filename.lastIndexOf(".") + 1).toLowerCase();
+    }
+}
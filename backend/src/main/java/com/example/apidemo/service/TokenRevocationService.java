@@ -0,0 +1,231 @@
+package com.example.apidemo.service;
+
+import com.example.apidemo.common.BloomFilter;
+import com.example.apidemo.config.JwtUtil;
+import com.example.apidemo.entity.RevokedToken;
+import com.example.apidemo.repository.RevokedTokenRepository;
+import io.jsonwebtoken.Claims;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token 吊销服务
+ * 吊销记录保存在数据库中，启动时载入内存，请求时只查内存：
+ * 单个 Token 先查布隆过滤器，可能命中时再查精确集合；整个用户的吊销按用户名查表。
+ * 记录在相关 Token 过期后自动清除
+ */
+@Service
+public class TokenRevocationService {
+
+    @Autowired
+    private RevokedTokenRepository revokedTokenRepository;
+
+    @Autowired
+    private PrincipalCache principalCache;
+
+    @Value("${jwt.expiration}")
+    private Long expiration;
+
+    @Value("${jwt.deny-list.expected-size:100000}")
+    private int expectedSize;
+
+    /**
+     * 过期记录清理间隔（毫秒）
+     */
+    @Value("${jwt.deny-list.purge-interval:60000}")
+    private long purgeInterval;
+
+    /**
+     * jti -> Token 过期时间
+     */
+    private final Map<String, Long> revokedTokens = new ConcurrentHashMap<>();
+
+    /**
+     * 用户名 -> 吊销时间，该时间之前签发的 Token 全部失效
+     */
+    private final Map<String, Long> revokedUsers = new ConcurrentHashMap<>();
+
+    /**
+     * 用户吊销记录的过期时间
+     */
+    private final Map<String, Long> revokedUserExpiry = new ConcurrentHashMap<>();
+
+    private volatile BloomFilter bloomFilter;
+
+    private ScheduledExecutorService scheduler;
+
+    private final AtomicLong checks = new AtomicLong();
+    private final AtomicLong bloomPasses = new AtomicLong();
+    private final AtomicLong deniedTokens = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        long now = System.currentTimeMillis();
+        for (RevokedToken token : revokedTokenRepository.findByExpiresAtAfter(toDateTime(now))) {
+            remember(token);
+        }
+        rebuildBloomFilter();
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "token-deny-list-purge");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::purge, purgeInterval, purgeInterval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Token 是否已被吊销
+     */
+    public boolean isRevoked(Claims claims) {
+        checks.incrementAndGet();
+        String tokenId = claims.getId();
+        if (tokenId != null && bloomFilter.mightContain(tokenId)) {
+            bloomPasses.incrementAndGet();
+            if (revokedTokens.containsKey(tokenId)) {
+                deniedTokens.incrementAndGet();
+                return true;
+            }
+        }
+
+        if (!revokedUsers.isEmpty()) {
+            Long revokedAt = revokedUsers.get(claims.getSubject());
+            Long issuedAt = issuedAtMillis(claims);
+            if (revokedAt != null && (issuedAt == null || issuedAt <= revokedAt)) {
+                deniedTokens.incrementAndGet();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 吊销单个 Token（退出登录）
+     */
+    public void revoke(Claims claims) {
+        long now = System.currentTimeMillis();
+        long expiresAt = claims.getExpiration() != null ? claims.getExpiration().getTime() : now + expiration;
+        if (claims.getId() == null) {
+            // 未带 jti 的旧 Token 只能按用户整体吊销
+            revokeAll(claims.getSubject());
+            return;
+        }
+
+        RevokedToken token = new RevokedToken(null, claims.getId(), claims.getSubject(),
+                toDateTime(now), toDateTime(expiresAt));
+        revokedTokenRepository.save(token);
+        remember(token);
+    }
+
+    /**
+     * 吊销用户当前所有的 Token
+     */
+    public void revokeAll(String username) {
+        long now = System.currentTimeMillis();
+        RevokedToken token = new RevokedToken(null, null, username,
+                toDateTime(now), toDateTime(now + expiration));
+        revokedTokenRepository.save(token);
+        remember(token);
+        principalCache.invalidate(username);
+    }
+
+    /**
+     * 吊销列表统计
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("revokedTokens", revokedTokens.size());
+        stats.put("revokedUsers", revokedUsers.size());
+        stats.put("bloomFilterBytes", bloomFilter.sizeInBytes());
+        stats.put("checks", checks.get());
+        stats.put("bloomPasses", bloomPasses.get());
+        stats.put("deniedTokens", deniedTokens.get());
+        return stats;
+    }
+
+    /**
+     * 毫秒精度的签发时间；吊销后同一秒内重新登录得到的 Token 不会被误判为吊销前签发。
+     * 没有该声明的旧 Token 退回到秒级 iat（吊销当秒签发的同样视为失效）
+     */
+    private static Long issuedAtMillis(Claims claims) {
+        Object millis = claims.get(JwtUtil.ISSUED_AT_MILLIS);
+        if (millis instanceof Number) {
+            return ((Number) millis).longValue();
+        }
+        Date issuedAt = claims.getIssuedAt();
+        return issuedAt != null ? issuedAt.getTime() : null;
+    }
+
+    private void remember(RevokedToken token) {
+        long revokedAt = toMillis(token.getRevokedAt());
+        long expiresAt = toMillis(token.getExpiresAt());
+        if (token.getTokenId() != null) {
+            // 先放入精确集合，再放入布隆过滤器，检查时不会漏掉
+            revokedTokens.put(token.getTokenId(), expiresAt);
+            BloomFilter current = bloomFilter;
+            if (current != null) {
+                current.put(token.getTokenId());
+            }
+        } else {
+            revokedUsers.merge(token.getUsername(), revokedAt, Math::max);
+            revokedUserExpiry.merge(token.getUsername(), expiresAt, Math::max);
+        }
+    }
+
+    /**
+     * 清除已过期的记录；布隆过滤器不能删除元素，按剩余记录重建
+     */
+    private void purge() {
+        try {
+            long now = System.currentTimeMillis();
+            revokedTokens.values().removeIf(expiresAt -> expiresAt <= now);
+            revokedUserExpiry.entrySet().removeIf(entry -> {
+                if (entry.getValue() <= now) {
+                    revokedUsers.remove(entry.getKey());
+                    return true;
+                }
+                return false;
+            });
+            rebuildBloomFilter();
+            revokedTokenRepository.deleteExpired(toDateTime(now));
+        } catch (RuntimeException e) {
+            // 下次清理时重试
+        }
+    }
+
+    private synchronized void rebuildBloomFilter() {
+        BloomFilter rebuilt = new BloomFilter(Math.max(expectedSize, revokedTokens.size() * 2L), 0.01);
+        revokedTokens.keySet().forEach(rebuilt::put);
+        bloomFilter = rebuilt;
+        // 重建期间新吊销的 Token 可能只进了旧的过滤器
+        revokedTokens.keySet().forEach(rebuilt::put);
+    }
+
+    private static LocalDateTime toDateTime(long millis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault());
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
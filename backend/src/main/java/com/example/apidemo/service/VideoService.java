@@ -3,7 +3,9 @@ package com.example.apidemo.service;
 import com.example.apidemo.common.BusinessException;
 import com.example.apidemo.entity.Video;
 import com.example.apidemo.repository.VideoRepository;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -14,9 +16,39 @@ import java.util.List;
 @Service
 public class VideoService {
 
+    private static final int BACKFILL_BATCH_SIZE = 500;
+
     @Autowired
     private VideoRepository videoRepository;
 
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    /**
+     * 为新增文件名列之前保存的视频解析文件名。
+     * 删除视频和孤儿文件清理都按文件名列判断文件是否仍被引用，必须在处理请求前补齐
+     */
+    @PostConstruct
+    public void backfillFileNames() {
+        long afterId = 0;
+        while (true) {
+            List<Object[]> rows = videoRepository.findUnresolvedFileUrlsAfter(afterId,
+                    PageRequest.of(0, BACKFILL_BATCH_SIZE));
+            for (Object[] row : rows) {
+                afterId = (Long) row[0];
+                String videoFile = fileStorageService.extractFilename((String) row[1]);
+                String coverFile = fileStorageService.extractFilename((String) row[2]);
+                // 外部地址解析不出文件名，保持为空
+                if (videoFile != null || coverFile != null) {
+                    videoRepository.updateFileNames(afterId, videoFile, coverFile);
+                }
+            }
+            if (rows.size() < BACKFILL_BATCH_SIZE) {
+                return;
+            }
+        }
+    }
+
     /**
      * 获取所有视频
      */
@@ -43,6 +75,7 @@ public class VideoService {
      * 创建视频
      */
     public Video create(Video video) {
+        resolveFileNames(video);
         return videoRepository.save(video);
     }
 
@@ -59,16 +92,34 @@ public class VideoService {
         if (videoData.getPublishTime() != null) {
             video.setPublishTime(videoData.getPublishTime());
         }
+        resolveFileNames(video);
         return videoRepository.save(video);
     }
 
     /**
-     * 删除视频
+     * 删除视频，同时删除不再被其他视频引用的视频文件和封面
      */
     public void delete(Long id) {
-        if (!videoRepository.existsById(id)) {
-            throw new BusinessException("视频不存在");
+        Video video = findById(id);
+        videoRepository.delete(video);
+        deleteUnreferencedFile(video.getVideoUrl());
+        deleteUnreferencedFile(video.getCoverUrl());
+    }
+
+    private void resolveFileNames(Video video) {
+        video.setVideoFile(fileStorageService.extractFilename(video.getVideoUrl()));
+        video.setCoverFile(fileStorageService.extractFilename(video.getCoverUrl()));
+    }
+
+    private void deleteUnreferencedFile(String url) {
+        String filename = fileStorageService.extractFilename(url);
+        if (filename == null || videoRepository.existsByVideoFileOrCoverFile(filename, filename)) {
+            return;
+        }
+        try {
+            fileStorageService.deleteFile(filename);
+        } catch (BusinessException e) {
+            // 删除失败的文件由后台孤儿文件清理回收
         }
-        videoRepository.deleteById(id);
     }
 }
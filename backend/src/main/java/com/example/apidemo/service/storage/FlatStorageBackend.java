@@ -0,0 +1,26 @@
+package com.example.apidemo.service.storage;
+
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * 平铺存储：所有文件放在同一目录下
+ */
+public class FlatStorageBackend implements StorageBackend {
+
+    private final Path root;
+
+    public FlatStorageBackend(Path root) {
+        this.root = root;
+    }
+
+    @Override
+    public Path resolve(String filename) {
+        return root.resolve(filename).normalize();
+    }
+
+    @Override
+    public List<Path> getRoots() {
+        return List.of(root);
+    }
+}
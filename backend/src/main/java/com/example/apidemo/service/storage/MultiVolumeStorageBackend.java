@@ -0,0 +1,82 @@
+package com.example.apidemo.service.storage;
+
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 多卷存储：按一致性哈希把文件分布到多个挂载点，卷内使用哈希分片目录
+ * 增加卷时只有约 1/n 的文件需要迁移
+ */
+public class MultiVolumeStorageBackend implements StorageBackend {
+
+    /**
+     * 每个卷的虚拟节点数
+     */
+    private static final int VIRTUAL_NODES = 160;
+
+    private final List<Path> roots;
+
+    private final List<ShardedStorageBackend> volumes = new ArrayList<>();
+
+    private final TreeMap<Long, ShardedStorageBackend> ring = new TreeMap<>();
+
+    public MultiVolumeStorageBackend(List<Path> roots) {
+        if (roots.isEmpty()) {
+            throw new IllegalArgumentException("至少需要配置一个存储卷");
+        }
+        this.roots = List.copyOf(roots);
+        for (Path root : roots) {
+            ShardedStorageBackend volume = new ShardedStorageBackend(root);
+            volumes.add(volume);
+            for (int i = 0; i < VIRTUAL_NODES; i++) {
+                ring.put(hash(root.toString() + "#" + i), volume);
+            }
+        }
+    }
+
+    @Override
+    public Path resolve(String filename) {
+        Map.Entry<Long, ShardedStorageBackend> entry = ring.ceilingEntry(hash(filename));
+        if (entry == null) {
+            entry = ring.firstEntry();
+        }
+        return entry.getValue().resolve(filename);
+    }
+
+    @Override
+    public Path locate(String filename) {
+        Path primary = resolve(filename);
+        if (Files.exists(primary)) {
+            return primary;
+        }
+        // 扩容后尚未迁移的文件仍在原来的卷上
+        for (ShardedStorageBackend volume : volumes) {
+            Path candidate = volume.resolve(filename);
+            if (!candidate.equals(primary) && Files.exists(candidate)) {
+                return candidate;
+            }
+        }
+        return primary;
+    }
+
+    @Override
+    public List<Path> getRoots() {
+        return roots;
+    }
+
+    private static long hash(String key) {
+        byte[] digest = DigestUtils.md5Digest(key.getBytes(StandardCharsets.UTF_8));
+        long value = 0;
+        for (int i = 0; i < 8; i++) {
+            value = (value << 8) | (digest[i] & 0xff);
+        }
+        return value;
+    }
+}
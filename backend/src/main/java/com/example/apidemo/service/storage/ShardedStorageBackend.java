@@ -0,0 +1,34 @@
+package com.example.apidemo.service.storage;
+
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * 哈希分片存储：根目录/ab/cd/文件名，ab、cd 取文件名 MD5 的前四位
+ * 共 65536 个目录，单目录文件数保持在较小规模
+ */
+public class ShardedStorageBackend implements StorageBackend {
+
+    private final Path root;
+
+    public ShardedStorageBackend(Path root) {
+        this.root = root;
+    }
+
+    @Override
+    public Path resolve(String filename) {
+        String hash = DigestUtils.md5DigestAsHex(filename.getBytes(StandardCharsets.UTF_8));
+        return root.resolve(hash.substring(0, 2))
+                .resolve(hash.substring(2, 4))
+                .resolve(filename)
+                .normalize();
+    }
+
+    @Override
+    public List<Path> getRoots() {
+        return List.of(root);
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.apidemo.service.storage;
+
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * 文件存储后端
+ * 决定上传文件在磁盘上的存放位置
+ */
+public interface StorageBackend {
+
+    /**
+     * 文件应存放的位置（新文件写入此处）
+     */
+    Path resolve(String filename);
+
+    /**
+     * 查找已有文件的位置
+     * 迁移/扩容期间文件可能尚未移动到 {@link #resolve(String)} 的位置
+     */
+    default Path locate(String filename) {
+        return resolve(filename);
+    }
+
+    /**
+     * 所有存储根目录
+     */
+    List<Path> getRoots();
+}
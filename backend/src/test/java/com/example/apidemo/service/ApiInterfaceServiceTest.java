@@ -0,0 +1,181 @@
+package com.example.apidemo.service;
+
+import com.example.apidemo.entity.ApiInterface;
+import com.example.apidemo.entity.ApiParameter;
+import com.example.apidemo.repository.ApiInterfaceRepository;
+import com.example.apidemo.repository.ApiParameterJdbcRepository;
+import com.example.apidemo.repository.ApiParameterJdbcRepository.ParameterRow;
+import com.example.apidemo.repository.SortOrderJdbcRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 参数树读取的查询次数：多层参数树只查询一次参数表，不逐层加载
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:apidemo;MODE=MySQL;DATABASE_TO_LOWER=TRUE",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect" })
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Import({ ApiInterfaceService.class, ApiParameterJdbcRepository.class, SortOrderJdbcRepository.class,
+        IdAllocator.class, ApiInterfaceServiceTest.StatementCounterConfig.class })
+class ApiInterfaceServiceTest {
+
+    @Autowired
+    private ApiInterfaceService interfaceService;
+
+    @Autowired
+    private ApiInterfaceRepository interfaceRepository;
+
+    @Autowired
+    private ApiParameterJdbcRepository parameterJdbcRepository;
+
+    @MockBean
+    private SchemaVersionService schemaVersionService;
+
+    @MockBean
+    private ParameterPathBackfillService pathBackfillService;
+
+    private Long interfaceId;
+
+    @BeforeEach
+    void setUp() {
+        ApiInterface apiInterface = new ApiInterface();
+        apiInterface.setName("创建订单");
+        apiInterface.setMethod("POST");
+        apiInterface.setPath("/orders");
+        interfaceId = interfaceRepository.saveAndFlush(apiInterface).getId();
+
+        // 四层：order -> items[] -> item -> sku
+        List<ParameterRow> rows = new ArrayList<>();
+        rows.add(row(1L, null, "order", "object", 0));
+        rows.add(row(2L, 1L, "id", "number", 0));
+        rows.add(row(3L, 1L, "items", "array", 1));
+        rows.add(row(4L, 3L, "item", "object", 0));
+        rows.add(row(5L, 4L, "sku", "string", 0));
+        rows.add(row(6L, 4L, "count", "number", 1));
+        rows.add(row(7L, null, "remark", "string", 1));
+        parameterJdbcRepository.batchInsert(interfaceId, rows);
+        StatementCounter.reset();
+    }
+
+    @Test
+    void getParametersQueriesParameterTableOnce() {
+        List<ApiParameter> tree = interfaceService.getParameters(interfaceId);
+
+        assertEquals(1, StatementCounter.count("api_parameters"));
+        assertEquals(2, tree.size());
+        ApiParameter item = tree.get(0).getChildren().get(1).getChildren().get(0);
+        assertEquals("item", item.getName());
+        assertEquals(List.of("sku", "count"), item.getChildren().stream().map(ApiParameter::getName).toList());
+    }
+
+    @Test
+    void jsonExampleQueriesParameterTableOnce() {
+        ApiInterfaceService.JsonExample example = interfaceService.getJsonExample(interfaceId);
+
+        assertEquals(1, StatementCounter.count("api_parameters"));
+        assertEquals(true, new String(example.getBody()).contains("sku"));
+
+        // 未变更时直接使用缓存
+        StatementCounter.reset();
+        interfaceService.getJsonExample(interfaceId);
+        assertEquals(0, StatementCounter.count("api_parameters"));
+    }
+
+    private static ParameterRow row(Long id, Long parentId, String name, String type, int sortOrder) {
+        ParameterRow row = new ParameterRow();
+        row.setId(id);
+        row.setParentId(parentId);
+        row.setName(name);
+        row.setType(type);
+        row.setSortOrder(sortOrder);
+        return row;
+    }
+
+    /**
+     * 记录经过数据源执行的 SQL（JdbcTemplate 与 Hibernate 都会经过）
+     */
+    static class StatementCounter {
+
+        private static final List<String> STATEMENTS = Collections.synchronizedList(new ArrayList<>());
+
+        static void reset() {
+            STATEMENTS.clear();
+        }
+
+        static long count(String table) {
+            synchronized (STATEMENTS) {
+                return STATEMENTS.stream()
+                        .filter(sql -> sql.toLowerCase(Locale.ROOT).matches("(?s)\\s*select\\b.*\\bfrom\\s+" + table + "\\b.*"))
+                        .count();
+            }
+        }
+
+        static DataSource wrap(DataSource dataSource) {
+            return (DataSource) Proxy.newProxyInstance(StatementCounter.class.getClassLoader(),
+                    new Class<?>[] { DataSource.class }, (proxy, method, args) -> {
+                        Object result = invoke(dataSource, method, args);
+                        return result instanceof Connection ? wrap((Connection) result) : result;
+                    });
+        }
+
+        private static Connection wrap(Connection connection) {
+            return (Connection) Proxy.newProxyInstance(StatementCounter.class.getClassLoader(),
+                    new Class<?>[] { Connection.class }, (proxy, method, args) -> {
+                        if (method.getName().startsWith("prepare") && args != null && args[0] instanceof String) {
+                            STATEMENTS.add((String) args[0]);
+                        }
+                        return invoke(connection, method, args);
+                    });
+        }
+
+        private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    @TestConfiguration
+    static class StatementCounterConfig {
+
+        @Bean
+        static BeanPostProcessor statementCountingDataSource() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource ? StatementCounter.wrap((DataSource) bean) : bean;
+                }
+            };
+        }
+    }
+}